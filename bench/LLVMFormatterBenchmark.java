@@ -0,0 +1,93 @@
+import LLVM.ILLVMCommandFormatter;
+import LLVM.LLVMBufferedCommandFormatter;
+import LLVM.LLVMCommandFormatter;
+import ast.Program;
+import ast.StringOutputSink;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * Compares the time and allocations of compiling with LLVMCommandFormatter and with LLVMBufferedCommandFormatter.
+ * Every program is parsed and analysed once, only code generation is measured.
+ * Usage: LLVMFormatterBenchmark <dir with .java programs> [iterations]
+ * */
+public class LLVMFormatterBenchmark {
+    private static final int WARMUP_ITERATIONS = 2000;
+
+    private static class Input {
+        private final String name;
+        private final Program program;
+        private final ProgramAnalyses analyses;
+
+        Input(String name, Program program, ProgramAnalyses analyses) {
+            this.name = name;
+            this.program = program;
+            this.analyses = analyses;
+        }
+    }
+
+    private static String compile(Input input, ILLVMCommandFormatter formatter) {
+        var sink = new StringOutputSink();
+        Main.compileProgram(input.program, input.analyses, formatter, null, new CompilerStats(false), sink);
+        return sink.toString();
+    }
+
+    private static long allocatedBytes() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void measure(String name, List<Input> inputs, Supplier<ILLVMCommandFormatter> formatters, int iterations) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            for (Input input : inputs) {
+                compile(input, formatters.get());
+            }
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            for (Input input : inputs) {
+                compile(input, formatters.get());
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        long compilations = (long) iterations * inputs.size();
+        System.out.printf("%-30s %12.2f us/program %12d bytes/program%n", name,
+                nanos / 1e3 / compilations, allocated / compilations);
+    }
+
+    public static void main(String[] args) throws Exception {
+        File[] files = new File(args[0]).listFiles((dir, name) -> name.endsWith(".java"));
+        if (files == null) {
+            throw new IllegalArgumentException("not a directory: " + args[0]);
+        }
+        Arrays.sort(files);
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+
+        List<Input> inputs = new ArrayList<>();
+        for (File file : files) {
+            var program = Main.readProgram("parse", file.getPath());
+            var analyses = ProgramAnalyses.of(program, new CompilerStats(false));
+            if (analyses.astToSymbolTable() == null) {
+                continue;
+            }
+            var input = new Input(file.getName(), program, analyses);
+            if (!compile(input, new LLVMCommandFormatter()).equals(compile(input, new LLVMBufferedCommandFormatter()))) {
+                throw new IllegalStateException("formatters disagree on " + input.name);
+            }
+            inputs.add(input);
+        }
+        System.out.printf("%d programs, %d iterations%n", inputs.size(), iterations);
+
+        measure("LLVMCommandFormatter", inputs, LLVMCommandFormatter::new, iterations);
+        measure("LLVMBufferedCommandFormatter", inputs, LLVMBufferedCommandFormatter::new, iterations);
+    }
+}
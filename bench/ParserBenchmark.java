@@ -0,0 +1,165 @@
+import ast.AstStaxWriter;
+import ast.Program;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Parses generated programs of doubling size with Parser and FastParser, to check that the parse time per statement
+ * stays flat. One shape has a single method with many statements, the other many small classes.
+ * FastParser.parseInParallel is timed too, it can only parse the classes concurrently in the second shape.
+ * Given a directory of .java programs, first checks that both parsers build the same AST for each of them (or report
+ * the same first syntax error), then measures their throughput over the whole directory.
+ * Usage: ParserBenchmark [largest size] [dir with .java programs]
+ * */
+public class ParserBenchmark {
+    private static final int SMALLEST_SIZE = 5000;
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int ITERATIONS = 5;
+
+    private static String mainClass() {
+        return "class Main {\n"
+                + "    public static void main(String[] args) {\n"
+                + "        System.out.println(new C0().run(1, 2));\n"
+                + "    }\n"
+                + "}\n";
+    }
+
+    private static String longMethod(int statements) {
+        StringBuilder program = new StringBuilder(mainClass());
+        program.append("class C0 {\n    public int run(int a, int b) {\n        int x;\n        x = 0;\n");
+        for (int i = 0; i < statements; i++) {
+            program.append("        x = x + a * ").append(i).append(";\n");
+        }
+        program.append("        return x;\n    }\n}\n");
+        return program.toString();
+    }
+
+    private static String manyClasses(int classes) {
+        StringBuilder program = new StringBuilder(mainClass());
+        for (int i = 0; i < classes; i++) {
+            program.append("class C").append(i).append(" {\n    int f;\n")
+                    .append("    public int run(int a, int b) {\n        f = a + b;\n        return f;\n    }\n}\n");
+        }
+        return program.toString();
+    }
+
+    static Program parse(String source) throws Exception {
+        return (Program) new Parser(new Lexer(new StringReader(source))).parse().value;
+    }
+
+    static Program parseFast(String source) throws Exception {
+        return new FastParser(new Lexer(new StringReader(source))).parse();
+    }
+
+    static Program parseInParallel(String source) throws Exception {
+        return FastParser.parseInParallel(new Lexer(new StringReader(source)));
+    }
+
+    private interface SourceParser {
+        Program parse(String source) throws Exception;
+    }
+
+    private static double parseMillis(String source, SourceParser parser) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parser.parse(source);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            parser.parse(source);
+        }
+        return (System.nanoTime() - start) / 1e6 / ITERATIONS;
+    }
+
+    private static Program parseEither(String source, boolean fast) throws Exception {
+        return fast ? parseFast(source) : parse(source);
+    }
+
+    private static void printShape(String shape, int size, String source) throws Exception {
+        double millis = parseMillis(source, ParserBenchmark::parse);
+        double fastMillis = parseMillis(source, ParserBenchmark::parseFast);
+        double parallelMillis = parseMillis(source, ParserBenchmark::parseInParallel);
+        System.out.printf("%-14s %10d %12.2f %14.3f %12.2f %14.3f %14.2f%n", shape, size,
+                millis, millis * 1e3 / size, fastMillis, fastMillis * 1e3 / size, parallelMillis);
+    }
+
+    // The marshalled AST, line numbers included, or the syntax error
+    private static String outcome(String source, boolean fast) throws Exception {
+        Program program;
+        try {
+            program = parseEither(source, fast);
+        } catch (SyntaxErrorException e) {
+            // Parser goes on after the first error, FastParser doesn't
+            return "Syntax error at " + e.getErrors().get(0);
+        }
+        var out = new ByteArrayOutputStream();
+        AstStaxWriter.write(program, out);
+        return out.toString("UTF-8");
+    }
+
+    private static void compareCorpus(File dir) throws Exception {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".java"));
+        if (files == null) {
+            throw new IllegalArgumentException("not a directory: " + dir);
+        }
+        Arrays.sort(files);
+
+        List<String> sources = new ArrayList<>();
+        long chars = 0;
+        int syntaxErrors = 0;
+        for (File file : files) {
+            var source = Files.readString(file.toPath());
+            var expected = outcome(source, false);
+            if (!expected.equals(outcome(source, true))) {
+                throw new IllegalStateException("the parsers disagree on " + file.getName());
+            }
+            if (expected.startsWith("Syntax error")) {
+                syntaxErrors++;
+                continue;
+            }
+            sources.add(source);
+            chars += source.length();
+        }
+        System.out.printf("%n%d programs (%d with syntax errors) parse the same with both parsers%n",
+                files.length, syntaxErrors);
+
+        for (boolean fast : new boolean[]{false, true}) {
+            for (int i = 0; i < WARMUP_ITERATIONS * 20; i++) {
+                for (String source : sources) {
+                    parseEither(source, fast);
+                }
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS * 20; i++) {
+                for (String source : sources) {
+                    parseEither(source, fast);
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-14s %12.2f MB/s%n", fast ? "FastParser" : "Parser",
+                    chars * (double) ITERATIONS * 20 / seconds / 1e6);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int largestSize = args.length > 0 ? Integer.parseInt(args[0]) : 80000;
+
+        System.out.printf("%-14s %10s %12s %14s %12s %14s %14s%n", "shape", "size",
+                "parse ms", "us per item", "fast ms", "fast us/item", "parallel ms");
+        for (int size = SMALLEST_SIZE; size <= largestSize; size *= 2) {
+            printShape("statements", size, longMethod(size));
+        }
+        for (int size = SMALLEST_SIZE; size <= largestSize; size *= 2) {
+            printShape("classes", size, manyClasses(size));
+        }
+
+        if (args.length > 1) {
+            compareCorpus(new File(args[1]));
+        }
+    }
+}
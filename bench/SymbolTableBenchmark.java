@@ -0,0 +1,147 @@
+import ast.ClassDecl;
+import ast.MethodDecl;
+import ast.Program;
+import ast.SymbolTable;
+import ast.SymbolType;
+
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Measures symbol table lookups on generated programs whose classes extend each other in chains of growing depth,
+ * with every method using the fields of all its superclasses, so most lookups walk up many scopes.
+ * Times looking up every variable (and a name nothing declares) in every method's scope, and building the analyses
+ * (the symbol tables and the name bindings) of the whole program.
+ * Usage: SymbolTableBenchmark [classes] [iterations]
+ * */
+public class SymbolTableBenchmark {
+    private static final int[] DEPTHS = {1, 4, 16, 64};
+    private static final int WARMUP_ITERATIONS = 20;
+
+    private static String chains(int classes, int depth) {
+        StringBuilder program = new StringBuilder("class Main {\n"
+                + "    public static void main(String[] args) {\n"
+                + "        System.out.println(new C0().run(1));\n"
+                + "    }\n"
+                + "}\n");
+        for (int i = 0; i < classes; i++) {
+            int first = i - i % depth;
+            program.append("class C").append(i);
+            if (i != first) {
+                program.append(" extends C").append(i - 1);
+            }
+            program.append(" {\n    int f").append(i).append(";\n")
+                    .append("    public int run(int a) {\n        int x;\n        x = a;\n");
+            for (int j = first; j <= i; j++) {
+                program.append("        x = x + f").append(j).append(";\n");
+            }
+            program.append("        return x;\n    }\n}\n");
+        }
+        return program.toString();
+    }
+
+    private static long allocatedBytes() {
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static class Scope {
+        private final SymbolTable symbolTable;
+        private final String[] names;
+
+        Scope(SymbolTable symbolTable, String[] names) {
+            this.symbolTable = symbolTable;
+            this.names = names;
+        }
+    }
+
+    // Every method's scope with the names of its fields, formals, locals and one that isn't declared anywhere
+    private static List<Scope> scopes(Program program, ProgramAnalyses analyses, int depth) {
+        List<Scope> scopes = new ArrayList<>();
+        List<ClassDecl> classDecls = program.classDecls();
+        for (int i = 0; i < classDecls.size(); i++) {
+            MethodDecl methodDecl = classDecls.get(i).methoddecls().get(0);
+            List<String> names = new ArrayList<>(List.of("a", "x", "missing"));
+            for (int j = i - i % depth; j <= i; j++) {
+                names.add(classDecls.get(j).fields().get(0).name());
+            }
+            scopes.add(new Scope(analyses.astToSymbolTable().getSymbolTable(methodDecl), names.toArray(new String[0])));
+        }
+        return scopes;
+    }
+
+    private static int lookUpAll(List<Scope> scopes) {
+        int found = 0;
+        for (Scope scope : scopes) {
+            for (String name : scope.names) {
+                if (scope.symbolTable.get(name, SymbolType.Var) != SymbolTable.NOT_FOUND) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    private static void measureLookups(List<Scope> scopes, int iterations) {
+        int lookups = 0;
+        for (Scope scope : scopes) {
+            lookups += scope.names.length;
+        }
+        int expected = lookups - scopes.size();
+        for (int i = 0; i < WARMUP_ITERATIONS * 100; i++) {
+            lookUpAll(scopes);
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations * 100; i++) {
+            if (lookUpAll(scopes) != expected) {
+                throw new IllegalStateException("lookups found the wrong symbols");
+            }
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        long total = (long) iterations * 100 * lookups;
+        System.out.printf("  lookups   %12.2f ns/lookup %12.2f bytes/lookup%n", (double) nanos / total,
+                (double) allocated / total);
+    }
+
+    private static void measureAnalyses(Program program, int iterations) throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            ProgramAnalyses.of(program, new CompilerStats(false));
+        }
+
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            ProgramAnalyses.of(program, new CompilerStats(false));
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+
+        System.out.printf("  analyses  %12.2f ms/program %12d bytes/program%n", nanos / 1e6 / iterations,
+                allocated / iterations);
+    }
+
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        for (int depth : DEPTHS) {
+            String source = chains(classes, depth);
+            var program = (Program) new Parser(new Lexer(new StringReader(source))).parse().value;
+            var analyses = ProgramAnalyses.of(program, new CompilerStats(false));
+            if (analyses.astToSymbolTable() == null) {
+                throw new IllegalStateException("the generated program is invalid");
+            }
+            Main.checkSemantics(program, analyses, new CompilerStats(false));
+
+            System.out.printf("%d classes in chains of %d%n", classes, depth);
+            measureLookups(scopes(program, analyses, depth), iterations);
+            measureAnalyses(program, iterations);
+        }
+    }
+}
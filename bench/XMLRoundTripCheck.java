@@ -0,0 +1,161 @@
+import ast.AstPrintVisitor;
+import ast.AstXMLSerializer;
+import ast.Program;
+import ast.StringOutputSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+
+/*
+ * Checks that the StAX and the JAXB backends of AstXMLSerializer agree on every .xml and .java file under the given
+ * directories: both read each .xml file to ASTs that print the same, and both marshal it, and each .java program
+ * that parses, to the same bytes, which both then read back to the AST they started from.
+ * The StAX reader rejects XML with elements the schema doesn't have, which JAXB skips, so it's fine for it to reject
+ * a file as long as JAXB reads it (AstXMLSerializer then falls back to JAXB).
+ * Exits with 1 after listing the files the backends disagree on.
+ * Usage: XMLRoundTripCheck dir...
+ * */
+public class XMLRoundTripCheck {
+    private static final AstXMLSerializer stax = new AstXMLSerializer(AstXMLSerializer.Backend.STAX);
+    private static final AstXMLSerializer jaxb = new AstXMLSerializer(AstXMLSerializer.Backend.JAXB);
+
+    private static final List<String> differences = new ArrayList<>();
+    private static int staxRejected = 0;
+
+    // The printed AST, or what went wrong printing it (ASTs read from invalid XML can have missing nodes)
+    private static String print(Program program) {
+        var sink = new StringOutputSink();
+        try {
+            new AstPrintVisitor(sink).visit(program);
+        } catch (RuntimeException e) {
+            return "can't print: " + e;
+        }
+        return sink.toString();
+    }
+
+    private static byte[] marshal(AstXMLSerializer serializer, Program program) throws IOException {
+        var out = new ByteArrayOutputStream();
+        serializer.serialize(program, out);
+        return out.toByteArray();
+    }
+
+    // null when the StAX reader rejects the XML
+    private static Program readStax(byte[] xml) {
+        try {
+            return stax.deserialize(new ByteArrayInputStream(xml));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // null when JAXB can't read the XML. It prints the stack trace of what it can't read, which isn't needed here
+    private static Program readJaxb(byte[] xml) {
+        PrintStream err = System.err;
+        System.setErr(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return jaxb.deserialize(new ByteArrayInputStream(xml));
+        } catch (IOException | RuntimeException e) {
+            return null;
+        } finally {
+            System.setErr(err);
+        }
+    }
+
+    private static void expect(boolean same, File file, String what) {
+        if (!same) {
+            differences.add(file + ": " + what);
+        }
+    }
+
+    private static void checkXml(File file) throws IOException {
+        byte[] xml = Files.readAllBytes(file.toPath());
+        Program jaxbProgram = readJaxb(xml);
+        if (jaxbProgram == null) {
+            differences.add(file + ": JAXB can't read it");
+            return;
+        }
+        byte[] jaxbXml = marshal(jaxb, jaxbProgram);
+        expect(Arrays.equals(marshal(stax, jaxbProgram), jaxbXml), file, "the backends marshal JAXB's AST differently");
+
+        Program staxProgram = readStax(xml);
+        if (staxProgram == null) {
+            staxRejected++;
+            return;
+        }
+        expect(print(staxProgram).equals(print(jaxbProgram)), file, "the backends read different ASTs");
+        expect(Arrays.equals(marshal(stax, staxProgram), jaxbXml), file, "the backends' ASTs marshal differently");
+    }
+
+    // false when the program has syntax errors
+    private static boolean checkJava(File file) throws Exception {
+        Program program;
+        try (var reader = new FileReader(file)) {
+            program = (Program) new Parser(new Lexer(reader)).parse().value;
+        } catch (SyntaxErrorException e) {
+            return false;
+        }
+        String printed = print(program);
+        byte[] staxXml = marshal(stax, program);
+        expect(Arrays.equals(staxXml, marshal(jaxb, program)), file, "the backends marshal it differently");
+
+        Program staxProgram = readStax(staxXml);
+        expect(staxProgram != null && print(staxProgram).equals(printed), file,
+                "the StAX reader doesn't read back what was marshalled");
+        Program jaxbProgram = readJaxb(staxXml);
+        expect(jaxbProgram != null && print(jaxbProgram).equals(printed), file,
+                "JAXB doesn't read back what was marshalled");
+        return true;
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            System.err.print("Usage: XMLRoundTripCheck dir...\n");
+            System.exit(2);
+        }
+        List<Path> files = new ArrayList<>();
+        for (String dir : args) {
+            try (Stream<Path> paths = Files.walk(Path.of(dir))) {
+                paths.filter(path -> path.toString().endsWith(".xml") || path.toString().endsWith(".java"))
+                        .filter(Files::isRegularFile)
+                        .forEach(files::add);
+            }
+        }
+        files.sort(null);
+
+        int xmlFiles = 0;
+        int programs = 0;
+        int syntaxErrors = 0;
+        for (Path path : files) {
+            if (path.toString().endsWith(".xml")) {
+                checkXml(path.toFile());
+                xmlFiles++;
+            } else if (checkJava(path.toFile())) {
+                programs++;
+            } else {
+                syntaxErrors++;
+            }
+        }
+
+        System.out.printf("%d XML files (%d only JAXB reads), %d programs (and %d with syntax errors)%n",
+                xmlFiles, staxRejected, programs, syntaxErrors);
+        if (!differences.isEmpty()) {
+            for (String difference : differences) {
+                System.out.println(difference);
+            }
+            System.out.printf("The StAX and JAXB backends disagree %d times%n", differences.size());
+            System.exit(1);
+        }
+        System.out.println("The StAX and JAXB backends agree on all of them");
+    }
+}
@@ -0,0 +1,179 @@
+import ast.AstBinarySerializer;
+import ast.CompressedFiles;
+import ast.FileChannelOutputSink;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+ * Compiles many files to LLVM in a single JVM, so the startup and JIT warmup are paid only once.
+ * Every .java input is parsed and every .xml or .mjast input is unmarshalled, .java and .xml may also be gzipped. Each file gets its own .ll output,
+ * and the summary is printed in input order no matter in which order the files finished compiling.
+ * */
+public class BatchCompiler {
+
+    private final File outputDir;
+    private final List<File> inputs;
+
+    public BatchCompiler(File outputDir, List<File> inputs) {
+        this.outputDir = outputDir;
+        this.inputs = inputs;
+    }
+
+    private static class BatchEntry {
+        private final File input;
+        private final File output;
+
+        BatchEntry(File input, File output) {
+            this.input = input;
+            this.output = output;
+        }
+    }
+
+    private static class BatchResult {
+        private final BatchEntry entry;
+        private final String error;
+
+        BatchResult(BatchEntry entry, String error) {
+            this.entry = entry;
+            this.error = error;
+        }
+    }
+
+    private static boolean isCompilable(File file) {
+        String name = CompressedFiles.uncompressedName(file.getName());
+        return file.isFile() && (name.endsWith(".java") || name.endsWith(".xml") || AstBinarySerializer.isBinaryFile(name));
+    }
+
+    // Directories are expanded recursively, and their files are sorted so the order doesn't depend on the file system
+    private void collectDirectory(File root, String relativePath, List<BatchEntry> entries) {
+        File[] children = root.listFiles();
+        if (children == null) {
+            return;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            String childPath = relativePath + child.getName();
+            if (child.isDirectory()) {
+                collectDirectory(child, childPath + File.separator, entries);
+            } else if (isCompilable(child)) {
+                entries.add(new BatchEntry(child, new File(outputDir, childPath + ".ll")));
+            }
+        }
+    }
+
+    // Inputs that would write the same output, e.g. files with the same name from different directories, are rejected
+    // rather than compiled concurrently into one file
+    private List<BatchEntry> collectEntries() {
+        List<BatchEntry> entries = new ArrayList<>();
+        for (File input : inputs) {
+            if (input.isDirectory()) {
+                collectDirectory(input, "", entries);
+            } else {
+                entries.add(new BatchEntry(input, new File(outputDir, input.getName() + ".ll")));
+            }
+        }
+
+        Map<File, File> inputsByOutput = new HashMap<>();
+        for (BatchEntry entry : entries) {
+            File other = inputsByOutput.putIfAbsent(entry.output.getAbsoluteFile(), entry.input);
+            if (other != null) {
+                throw new IllegalArgumentException(other + " and " + entry.input + " would both be compiled to "
+                        + entry.output);
+            }
+        }
+        return entries;
+    }
+
+    static String describe(Throwable e) {
+        if (e instanceof SyntaxErrorException) {
+            return ((SyntaxErrorException) e).describeAll();
+        }
+        if (e.getMessage() != null) {
+            return e.getMessage();
+        }
+        return e.getClass().getSimpleName();
+    }
+
+    private static BatchResult compile(BatchEntry entry) {
+        try {
+            String name = CompressedFiles.uncompressedName(entry.input.getName());
+            String inputMethod = name.endsWith(".xml") || AstBinarySerializer.isBinaryFile(name) ? "unmarshal" : "parse";
+            // Not printed, but its phases still show up as JFR events
+            var stats = new CompilerStats(false);
+            stats.start(inputMethod);
+            var prog = Main.readProgram(inputMethod, entry.input.getPath());
+            stats.stop();
+            var analyses = ProgramAnalyses.of(prog, stats);
+
+            File parent = entry.output.getParentFile();
+            if (parent != null) {
+                Files.createDirectories(parent.toPath());
+            }
+            try (var sink = new FileChannelOutputSink(entry.output.toPath())) {
+                Main.compileProgram(prog, analyses, null, stats, sink);
+                stats.start("write");
+            }
+            stats.stop();
+            return new BatchResult(entry, null);
+        } catch (Exception | StackOverflowError e) {
+            // Don't leave a partially streamed output behind
+            try {
+                Files.deleteIfExists(entry.output.toPath());
+            } catch (IOException deleteError) {
+                e.addSuppressed(deleteError);
+            }
+            return new BatchResult(entry, describe(e));
+        }
+    }
+
+    /*
+     * Compiles all inputs on a work stealing pool sized to the number of cores.
+     * Returns the number of files that failed.
+     * */
+    public int run(PrintStream summary) throws IOException, InterruptedException {
+        List<BatchEntry> entries = collectEntries();
+        Files.createDirectories(outputDir.toPath());
+
+        ExecutorService pool = Executors.newWorkStealingPool();
+        List<Future<BatchResult>> futures = new ArrayList<>();
+        try {
+            for (BatchEntry entry : entries) {
+                futures.add(pool.submit(() -> compile(entry)));
+            }
+
+            int failed = 0;
+            for (Future<BatchResult> future : futures) {
+                BatchResult result;
+                try {
+                    result = future.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException(e.getCause());
+                }
+
+                if (result.error == null) {
+                    summary.println("OK   " + result.entry.input.getPath());
+                } else {
+                    summary.println("FAIL " + result.entry.input.getPath() + ": " + result.error);
+                    failed++;
+                }
+            }
+            summary.println(String.format("%d files, %d compiled, %d failed",
+                    entries.size(), entries.size() - failed, failed));
+            return failed;
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
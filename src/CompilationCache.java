@@ -0,0 +1,228 @@
+import ast.ILLVMFragmentCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+ * On-disk cache of command outputs, addressed by a hash of the input bytes, the command line
+ * (without the input and output paths) and the compiler build itself.
+ * Entries are written to a temporary file and atomically moved in place, so concurrent compilers
+ * never see a partial entry. The total size is bounded by evicting the least recently used entries,
+ * where "used" is tracked with the entry's modification time.
+ * It also stores the per-class LLVM fragments used for incremental compilation.
+ * */
+public class CompilationCache implements ILLVMFragmentCache {
+    private static final String TEMP_PREFIX = "tmp-";
+
+    private static byte[] compilerFingerprint;
+
+    private final Path directory;
+    private final long maxBytes;
+
+    public CompilationCache(Path directory, long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void updateWithFile(MessageDigest digest, Path file) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+    }
+
+    // Hash of the jar (or class directory) this compiler runs from, so a rebuilt compiler never sees stale entries
+    private static synchronized byte[] getCompilerFingerprint() throws IOException {
+        if (compilerFingerprint != null) {
+            return compilerFingerprint;
+        }
+
+        Path location;
+        try {
+            location = Path.of(CompilationCache.class.getProtectionDomain().getCodeSource().getLocation().toURI());
+        } catch (URISyntaxException e) {
+            throw new IOException(e);
+        }
+
+        MessageDigest digest = newDigest();
+        if (Files.isDirectory(location)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(location)) {
+                files = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                updateWithFile(digest, file);
+            }
+        } else {
+            updateWithFile(digest, location);
+        }
+
+        compilerFingerprint = digest.digest();
+        return compilerFingerprint;
+    }
+
+    /*
+     * args are the command line arguments without the output file, the last one being the input file.
+     * The input file, like any other argument naming a file (e.g. the patch of apply-patch), counts by its content.
+     * outputExtension is part of the key since it picks the output's format.
+     * */
+    public String key(List<String> args, String outputExtension) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(getCompilerFingerprint());
+        for (int i = 0; i < args.size() - 1; i++) {
+            digest.update(args.get(i).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            var argFile = Path.of(args.get(i));
+            if (i >= 2 && Files.isRegularFile(argFile)) {
+                updateWithFile(digest, argFile);
+            }
+        }
+        updateWithFile(digest, Path.of(args.get(args.size() - 1)));
+        digest.update(outputExtension.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    private static String toHex(byte[] hash) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : hash) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private String fragmentKey(String fingerprint) throws IOException {
+        MessageDigest digest = newDigest();
+        digest.update(getCompilerFingerprint());
+        digest.update("fragment ".getBytes(StandardCharsets.UTF_8));
+        digest.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+        return toHex(digest.digest());
+    }
+
+    @Override
+    public String getFragment(String fingerprint) {
+        try {
+            Path entry = directory.resolve(fragmentKey(fingerprint));
+            String fragment = Files.readString(entry);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return fragment;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void putFragment(String fingerprint, String fragment) {
+        try {
+            Files.createDirectories(directory);
+            Path temp = Files.createTempFile(directory, TEMP_PREFIX, null);
+            try {
+                Files.writeString(temp, fragment);
+                Files.move(temp, directory.resolve(fragmentKey(fingerprint)),
+                        StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            // Eviction runs once the whole output is stored, rather than for every class
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void atomicCopy(Path source, Path target) throws IOException {
+        Path targetDir = target.toAbsolutePath().getParent();
+        Path temp = Files.createTempFile(targetDir, TEMP_PREFIX, null);
+        try {
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /*
+     * Copies the cached output of key to output. Returns false if there is no such entry.
+     * */
+    public boolean restore(String key, Path output) throws IOException {
+        Path entry = directory.resolve(key);
+        try {
+            atomicCopy(entry, output);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    public void store(String key, Path output) throws IOException {
+        Files.createDirectories(directory);
+        atomicCopy(output, directory.resolve(key));
+        evict();
+    }
+
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        try (Stream<Path> list = Files.list(directory)) {
+            list.filter(p -> !p.getFileName().toString().startsWith(TEMP_PREFIX)).forEach(entries::add);
+        }
+
+        long total = 0;
+        List<Path> existing = new ArrayList<>();
+        List<FileTime> usedTimes = new ArrayList<>();
+        List<Long> sizes = new ArrayList<>();
+        for (Path entry : entries) {
+            try {
+                FileTime usedTime = Files.getLastModifiedTime(entry);
+                long size = Files.size(entry);
+                usedTimes.add(usedTime);
+                sizes.add(size);
+                existing.add(entry);
+                total += size;
+            } catch (NoSuchFileException e) {
+                // evicted by another compiler meanwhile
+            }
+        }
+        if (total <= maxBytes) {
+            return;
+        }
+
+        List<Integer> order = new ArrayList<>();
+        for (int i = 0; i < existing.size(); i++) {
+            order.add(i);
+        }
+        order.sort(Comparator.comparing(usedTimes::get));
+
+        for (int i : order) {
+            if (total <= maxBytes) {
+                break;
+            }
+            Files.deleteIfExists(existing.get(i));
+            total -= sizes.get(i);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+import java.io.*;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Long running compiler that keeps the JIT and the JAXB context warm between requests.
+ * Listens on a loopback port (when the address is a number) or on a unix domain socket path.
+ *
+ * Every request is a single line with the usual command line arguments separated by tabs, e.g.
+ *     parse<TAB>compile<TAB>in.java<TAB>out.ll
+ * and is answered by a single line, "OK" or "ERROR <message>".
+ * Relative paths are resolved against the directory the server was started in.
+ * A "shutdown" request stops the server.
+ * */
+public class CompileServer {
+
+    private final String address;
+    private final MainOptions options;
+    private ServerSocketChannel serverChannel;
+    private volatile boolean running;
+
+    // options are applied to every request, e.g. --cache
+    public CompileServer(String address, MainOptions options) {
+        this.address = address;
+        this.options = options;
+    }
+
+    private boolean isPort() {
+        return !address.isEmpty() && address.chars().allMatch(Character::isDigit);
+    }
+
+    private ServerSocketChannel open() throws IOException {
+        if (isPort()) {
+            var channel = ServerSocketChannel.open();
+            channel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), Integer.parseInt(address)));
+            return channel;
+        }
+
+        Path socketPath = Path.of(address);
+        removeStaleSocket(socketPath);
+        var channel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        channel.bind(UnixDomainSocketAddress.of(socketPath));
+        return channel;
+    }
+
+    // A socket left behind by a server that didn't shut down is removed, anything else at the path is an error
+    private static void removeStaleSocket(Path socketPath) throws IOException {
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(socketPath, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } catch (NoSuchFileException e) {
+            return;
+        }
+        if (!attributes.isOther()) {
+            throw new IOException(socketPath + " already exists and isn't a socket");
+        }
+        SocketChannel client;
+        try {
+            client = SocketChannel.open(UnixDomainSocketAddress.of(socketPath));
+        } catch (ConnectException e) {
+            Files.deleteIfExists(socketPath);
+            return;
+        }
+        client.close();
+        throw new IOException("a server is already listening on " + socketPath);
+    }
+
+    public void serve() throws IOException {
+        serverChannel = open();
+        running = true;
+        System.out.println("Listening on " + serverChannel.getLocalAddress());
+
+        ExecutorService pool = Executors.newCachedThreadPool();
+        try {
+            while (running) {
+                SocketChannel client;
+                try {
+                    client = serverChannel.accept();
+                } catch (ClosedChannelException e) {
+                    break; // closed by a shutdown request
+                }
+                pool.submit(() -> handle(client));
+            }
+        } finally {
+            pool.shutdown();
+            serverChannel.close();
+            if (!isPort()) {
+                Files.deleteIfExists(Path.of(address));
+            }
+        }
+    }
+
+    private void shutdown() {
+        running = false;
+        try {
+            serverChannel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private String execute(String[] args) {
+        try {
+            Main.runAction(args, options);
+            return "OK";
+        } catch (Exception | StackOverflowError e) {
+            return "ERROR " + BatchCompiler.describe(e).replace('\n', ' ');
+        }
+    }
+
+    private void handle(SocketChannel client) {
+        try (client;
+             var reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+             var writer = new PrintWriter(new OutputStreamWriter(Channels.newOutputStream(client), StandardCharsets.UTF_8))) {
+            String request;
+            while ((request = reader.readLine()) != null) {
+                if (request.isBlank()) {
+                    continue;
+                }
+                if (request.equals("shutdown")) {
+                    writer.println("OK");
+                    writer.flush();
+                    shutdown();
+                    return;
+                }
+
+                writer.println(execute(request.split("\t")));
+                writer.flush();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,130 @@
+import ast.CompilerEvents;
+import ast.ICompilerEvent;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/*
+ * Wall time, CPU time and allocated bytes of every compiler phase, plus counters such as the number of AST nodes.
+ * Phases are measured on the current thread and must not overlap.
+ * When disabled, nothing is measured and counters aren't computed, but every phase is still reported as a JFR event.
+ * */
+public class CompilerStats {
+
+    private static class Phase {
+        private final String name;
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        Phase(String name) {
+            this.name = name;
+        }
+    }
+
+    private final boolean enabled;
+    // Only looked up when enabled, since initializing the management beans slows down every startup
+    private ThreadMXBean threads;
+    private final List<Phase> phases = new ArrayList<>();
+    private final Map<String, Long> counters = new LinkedHashMap<>();
+    private Phase current;
+    private ICompilerEvent currentEvent;
+
+    public CompilerStats(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            threads = ManagementFactory.getThreadMXBean();
+        }
+    }
+
+    private long cpuTime() {
+        return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+    }
+
+    private long allocatedBytes() {
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            var allocationBean = (com.sun.management.ThreadMXBean) threads;
+            if (allocationBean.isThreadAllocatedMemorySupported() && allocationBean.isThreadAllocatedMemoryEnabled()) {
+                return allocationBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return 0;
+    }
+
+    public void start(String phaseName) {
+        currentEvent = CompilerEvents.phase(phaseName);
+        if (!enabled) {
+            return;
+        }
+        current = new Phase(phaseName);
+        current.allocatedBytes = allocatedBytes();
+        current.cpuNanos = cpuTime();
+        current.wallNanos = System.nanoTime();
+    }
+
+    public void stop() {
+        currentEvent.finish();
+        currentEvent = null;
+        if (!enabled) {
+            return;
+        }
+        current.wallNanos = System.nanoTime() - current.wallNanos;
+        current.cpuNanos = cpuTime() - current.cpuNanos;
+        current.allocatedBytes = allocatedBytes() - current.allocatedBytes;
+        phases.add(current);
+        current = null;
+    }
+
+    // The value is only computed when stats are enabled, since some counters need a pass over the AST
+    public void count(String name, LongSupplier value) {
+        if (enabled) {
+            counters.put(name, value.getAsLong());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(String.format("%-28s %12s %12s %16s\n", "phase", "wall ms", "cpu ms", "allocated bytes"));
+        for (Phase phase : phases) {
+            text.append(String.format("%-28s %12.3f %12.3f %16d\n", phase.name,
+                    phase.wallNanos / 1e6, phase.cpuNanos / 1e6, phase.allocatedBytes));
+        }
+        for (var counter : counters.entrySet()) {
+            text.append(String.format("%-28s %12d\n", counter.getKey(), counter.getValue()));
+        }
+        return text.toString();
+    }
+
+    private static String jsonString(String value) {
+        return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+
+    public String toJson() {
+        StringBuilder json = new StringBuilder("{\"phases\": [");
+        String delim = "";
+        for (Phase phase : phases) {
+            json.append(delim);
+            json.append(String.format("{\"name\": %s, \"wallNanos\": %d, \"cpuNanos\": %d, \"allocatedBytes\": %d}",
+                    jsonString(phase.name), phase.wallNanos, phase.cpuNanos, phase.allocatedBytes));
+            delim = ", ";
+        }
+        json.append("], \"counters\": {");
+        delim = "";
+        for (var counter : counters.entrySet()) {
+            json.append(delim);
+            json.append(jsonString(counter.getKey())).append(": ").append(counter.getValue());
+            delim = ", ";
+        }
+        json.append("}}\n");
+        return json.toString();
+    }
+}
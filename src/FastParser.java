@@ -0,0 +1,512 @@
+import ast.*;
+import java_cup.runtime.Symbol;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/*
+ * A hand-written recursive descent parser for the grammar of Parser.cup, over the same Lexer tokens.
+ * Expressions are parsed by precedence climbing, with the precedences Parser.cup declares, so it builds the same AST
+ * as Parser, line numbers included, and reports the first syntax error at the same line and column.
+ * Like Parser, it only reads the next token after the current one is consumed. Unlike Parser, it doesn't recover
+ * from syntax errors, it stops at the first one.
+ * The nodes Parser gives a line number to also get the column they start at and the offset they end at.
+ *
+ * parseInParallel lexes the whole source first, splits the tokens at every "class" outside braces and parses the main
+ * class and each class declaration concurrently. When a class doesn't parse exactly up to where the next one starts,
+ * the tokens are parsed again on one thread, so errors are reported as if they were parsed in order.
+ * */
+public class FastParser {
+    // Sources smaller than this aren't worth lexing up front to parse in parallel
+    private static final long PARALLEL_MIN_BYTES = 1024 * 1024;
+
+    // Binding power of the binary operators, 0 for any other token
+    private static final int[] PRECEDENCE = new int[sym.DOT + 1];
+
+    static {
+        PRECEDENCE[sym.AND] = 1;
+        PRECEDENCE[sym.LT] = 2;
+        PRECEDENCE[sym.PLUS] = 3;
+        PRECEDENCE[sym.MINUS] = 3;
+        PRECEDENCE[sym.MULT] = 4;
+    }
+
+    /*
+     * All the tokens of a source, up to and including EOF, or up to the lexer failure.
+     * */
+    private static class Tokens {
+        private Symbol[] symbols = new Symbol[1024];
+        private int[] endOffsets = new int[1024];
+        private int count = 0;
+        // What reading the token after the last one throws, null when the last one is EOF
+        private RuntimeException failure = null;
+
+        static Tokens lex(Lexer lexer) throws IOException {
+            var tokens = new Tokens();
+            Symbol symbol;
+            do {
+                try {
+                    symbol = lexer.next_token();
+                } catch (RuntimeException e) {
+                    tokens.failure = e;
+                    return tokens;
+                } catch (java.lang.Error e) {
+                    tokens.failure = new SyntaxErrorException(lexer.getLine(), lexer.getCharPos() + 1);
+                    return tokens;
+                }
+                if (tokens.count == tokens.symbols.length) {
+                    tokens.symbols = Arrays.copyOf(tokens.symbols, tokens.count * 2);
+                    tokens.endOffsets = Arrays.copyOf(tokens.endOffsets, tokens.count * 2);
+                }
+                tokens.endOffsets[tokens.count] = lexer.getEndOffset();
+                tokens.symbols[tokens.count++] = symbol;
+            } while (symbol.sym != sym.EOF);
+            return tokens;
+        }
+
+        // Throws what the lexer threw when i is past the last token
+        Symbol get(int i) {
+            if (i < count) {
+                return symbols[i];
+            }
+            throw failure;
+        }
+
+        // The index of every "class" outside braces, then the index of EOF
+        List<Integer> classStarts() {
+            List<Integer> starts = new ArrayList<>();
+            int depth = 0;
+            for (int i = 0; i < count; i++) {
+                int type = symbols[i].sym;
+                if (type == sym.LCURLY_BRACK) {
+                    depth++;
+                } else if (type == sym.RCURLY_BRACK) {
+                    depth--;
+                } else if (type == sym.CLASS && depth == 0) {
+                    starts.add(i);
+                }
+            }
+            starts.add(count - 1);
+            return starts;
+        }
+    }
+
+    // Exactly one of lexer and tokens is set
+    private final Lexer lexer;
+    private final Tokens tokens;
+    private int index = -1;
+    private Symbol token;
+    // Where the current token ends, and where the one before it ended
+    private int tokenEnd = 0;
+    private int previousEnd = 0;
+
+    public FastParser(Lexer lexer) {
+        this.lexer = lexer;
+        this.tokens = null;
+    }
+
+    private FastParser(Tokens tokens, int start) {
+        this.lexer = null;
+        this.tokens = tokens;
+        this.index = start - 1;
+    }
+
+    public static boolean worthParsingInParallel(long sourceBytes) {
+        return sourceBytes >= PARALLEL_MIN_BYTES && Runtime.getRuntime().availableProcessors() > 1;
+    }
+
+    public static Program parseInParallel(Lexer lexer) throws IOException {
+        var tokens = Tokens.lex(lexer);
+        if (tokens.failure != null) {
+            return new FastParser(tokens, 0).parse();
+        }
+
+        var starts = tokens.classStarts();
+        if (starts.size() < 2 || starts.get(0) != 0) {
+            return new FastParser(tokens, 0).parse();
+        }
+        // The main class, then every class declaration, null where a class didn't parse
+        AstNode[] units = IntStream.range(0, starts.size() - 1).parallel()
+                .mapToObj(i -> parseUnit(tokens, starts.get(i), starts.get(i + 1), i == 0))
+                .toArray(AstNode[]::new);
+
+        var classDecls = new ArrayList<ClassDecl>(units.length - 1);
+        for (int i = 1; i < units.length; i++) {
+            if (units[i] == null) {
+                return new FastParser(tokens, 0).parse();
+            }
+            classDecls.add((ClassDecl) units[i]);
+        }
+        if (units[0] == null) {
+            return new FastParser(tokens, 0).parse();
+        }
+        return new Program((MainClass) units[0], classDecls);
+    }
+
+    // null unless the tokens from start to end are exactly one class
+    private static AstNode parseUnit(Tokens tokens, int start, int end, boolean isMainClass) {
+        var parser = new FastParser(tokens, start);
+        try {
+            parser.next();
+            AstNode unit = isMainClass ? parser.parseMainClass() : parser.parseClassDecl();
+            return parser.index == end ? unit : null;
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    public Program parse() throws IOException {
+        next();
+        var mainClass = parseMainClass();
+        var classDecls = new ArrayList<ClassDecl>();
+        while (token.sym == sym.CLASS) {
+            classDecls.add(parseClassDecl());
+        }
+        expect(sym.EOF);
+        return new Program(mainClass, classDecls);
+    }
+
+    private void next() throws IOException {
+        previousEnd = tokenEnd;
+        if (tokens != null) {
+            token = tokens.get(++index);
+            tokenEnd = tokens.endOffsets[index];
+            return;
+        }
+        try {
+            token = lexer.next_token();
+        } catch (java.lang.Error e) {
+            throw new SyntaxErrorException(lexer.getLine(), lexer.getCharPos() + 1);
+        }
+        tokenEnd = lexer.getEndOffset();
+    }
+
+    // From the start of first to the end of the last consumed token
+    private <T extends AstNode> T withSpan(T node, Symbol first) {
+        node.setSpan(SourceSpan.of(first.left, first.right, previousEnd));
+        return node;
+    }
+
+    // At the current token, with Parser's 1 based line and column
+    private SyntaxErrorException syntaxError() {
+        return new SyntaxErrorException(token.left + 1, token.right + 1);
+    }
+
+    private void expect(int type) throws IOException {
+        if (token.sym != type) {
+            throw syntaxError();
+        }
+        if (type != sym.EOF) {
+            next();
+        }
+    }
+
+    private String identifier() throws IOException {
+        if (token.sym != sym.IDENTIFIER) {
+            throw syntaxError();
+        }
+        var name = (String) token.value;
+        next();
+        return name;
+    }
+
+    private MainClass parseMainClass() throws IOException {
+        expect(sym.CLASS);
+        var name = identifier();
+        expect(sym.LCURLY_BRACK);
+        expect(sym.PUBLIC);
+        expect(sym.STATIC);
+        expect(sym.VOID);
+        expect(sym.MAIN);
+        expect(sym.LPAREN);
+        expect(sym.STRING);
+        expect(sym.LSQUARE_BRACK);
+        expect(sym.RSQUARE_BRACK);
+        var argsName = identifier();
+        expect(sym.RPAREN);
+        expect(sym.LCURLY_BRACK);
+        var mainStatement = parseStatement();
+        expect(sym.RCURLY_BRACK);
+        expect(sym.RCURLY_BRACK);
+        return new MainClass(name, argsName, mainStatement);
+    }
+
+    private ClassDecl parseClassDecl() throws IOException {
+        expect(sym.CLASS);
+        var name = identifier();
+        String superName = null;
+        if (token.sym == sym.EXTENDS) {
+            next();
+            superName = identifier();
+        }
+        expect(sym.LCURLY_BRACK);
+        var fields = new ArrayList<VarDecl>();
+        while (token.sym == sym.INT || token.sym == sym.BOOLEAN || token.sym == sym.IDENTIFIER) {
+            var first = token;
+            fields.add(parseVarDecl(parseType(), first));
+        }
+        var methodDecls = new ArrayList<MethodDecl>();
+        while (token.sym == sym.PUBLIC) {
+            methodDecls.add(parseMethodDecl());
+        }
+        expect(sym.RCURLY_BRACK);
+        return new ClassDecl(name, superName, fields, methodDecls);
+    }
+
+    private AstType parseType() throws IOException {
+        switch (token.sym) {
+            case sym.INT:
+                next();
+                if (token.sym == sym.LSQUARE_BRACK) {
+                    next();
+                    expect(sym.RSQUARE_BRACK);
+                    return new IntArrayAstType();
+                }
+                return new IntAstType();
+            case sym.BOOLEAN:
+                next();
+                return new BoolAstType();
+            case sym.IDENTIFIER:
+                return new RefType(identifier());
+            default:
+                throw syntaxError();
+        }
+    }
+
+    // The type is already parsed, first is its first token
+    private VarDecl parseVarDecl(AstType type, Symbol first) throws IOException {
+        var name = identifier();
+        expect(sym.SEMICOLON);
+        return withSpan(new VarDecl(type, name, first.left), first);
+    }
+
+    private MethodDecl parseMethodDecl() throws IOException {
+        var first = token;
+        expect(sym.PUBLIC);
+        var returnType = parseType();
+        var name = identifier();
+
+        expect(sym.LPAREN);
+        var formals = new ArrayList<FormalArg>();
+        if (token.sym != sym.RPAREN) {
+            formals.add(parseFormalArg());
+            while (token.sym == sym.COMMA) {
+                next();
+                formals.add(parseFormalArg());
+            }
+        }
+        expect(sym.RPAREN);
+
+        expect(sym.LCURLY_BRACK);
+        var varDecls = new ArrayList<VarDecl>();
+        var body = new ArrayList<Statement>();
+        // An identifier starts either a declaration of that class's type or the first statement,
+        // which only the token after it tells apart
+        while (token.sym == sym.INT || token.sym == sym.BOOLEAN || token.sym == sym.IDENTIFIER) {
+            var typeFirst = token;
+            if (token.sym != sym.IDENTIFIER) {
+                varDecls.add(parseVarDecl(parseType(), typeFirst));
+                continue;
+            }
+            var id = identifier();
+            if (token.sym == sym.IDENTIFIER) {
+                varDecls.add(parseVarDecl(new RefType(id), typeFirst));
+            } else {
+                body.add(parseAssignment(id));
+                break;
+            }
+        }
+        while (token.sym != sym.RETURN) {
+            body.add(parseStatement());
+        }
+        next();
+        var ret = parseExpression(1);
+        expect(sym.SEMICOLON);
+        expect(sym.RCURLY_BRACK);
+        return withSpan(new MethodDecl(returnType, name, formals, varDecls, body, ret, first.left), first);
+    }
+
+    private FormalArg parseFormalArg() throws IOException {
+        var first = token;
+        var type = parseType();
+        return withSpan(new FormalArg(type, identifier(), first.left), first);
+    }
+
+    private Statement parseStatement() throws IOException {
+        switch (token.sym) {
+            case sym.IDENTIFIER:
+                return parseAssignment(identifier());
+            case sym.IF: {
+                next();
+                expect(sym.LPAREN);
+                var cond = parseExpression(1);
+                expect(sym.RPAREN);
+                var thencase = parseStatement();
+                expect(sym.ELSE);
+                return new IfStatement(cond, thencase, parseStatement());
+            }
+            case sym.WHILE: {
+                next();
+                expect(sym.LPAREN);
+                var cond = parseExpression(1);
+                expect(sym.RPAREN);
+                return new WhileStatement(cond, parseStatement());
+            }
+            case sym.PRINT_FUNC: {
+                next();
+                expect(sym.LPAREN);
+                var arg = parseExpression(1);
+                expect(sym.RPAREN);
+                expect(sym.SEMICOLON);
+                return new SysoutStatement(arg);
+            }
+            case sym.LCURLY_BRACK: {
+                next();
+                var statements = new ArrayList<Statement>();
+                while (token.sym != sym.RCURLY_BRACK) {
+                    statements.add(parseStatement());
+                }
+                next();
+                return new BlockStatement(statements);
+            }
+            default:
+                throw syntaxError();
+        }
+    }
+
+    // The assigned identifier is already consumed
+    private Statement parseAssignment(String lv) throws IOException {
+        if (token.sym == sym.LSQUARE_BRACK) {
+            next();
+            var index = parseExpression(1);
+            expect(sym.RSQUARE_BRACK);
+            expect(sym.ASSIGN);
+            var rv = parseExpression(1);
+            expect(sym.SEMICOLON);
+            return new AssignArrayStatement(lv, index, rv);
+        }
+        expect(sym.ASSIGN);
+        var rv = parseExpression(1);
+        expect(sym.SEMICOLON);
+        return new AssignStatement(lv, rv);
+    }
+
+    // Only binary operators binding at least as tightly as minPrecedence are part of the expression
+    private Expr parseExpression(int minPrecedence) throws IOException {
+        var left = parseUnary();
+        while (token.sym < PRECEDENCE.length && PRECEDENCE[token.sym] >= minPrecedence) {
+            int operator = token.sym;
+            next();
+            // All the operators are left associative
+            var right = parseExpression(PRECEDENCE[operator] + 1);
+            switch (operator) {
+                case sym.AND:
+                    left = new AndExpr(left, right);
+                    break;
+                case sym.LT:
+                    left = new LtExpr(left, right);
+                    break;
+                case sym.PLUS:
+                    left = new AddExpr(left, right);
+                    break;
+                case sym.MINUS:
+                    left = new SubtractExpr(left, right);
+                    break;
+                default:
+                    left = new MultExpr(left, right);
+                    break;
+            }
+        }
+        return left;
+    }
+
+    // ! binds tighter than the binary operators, but looser than indexing and member access
+    private Expr parseUnary() throws IOException {
+        if (token.sym == sym.NOT) {
+            next();
+            return new NotExpr(parseUnary());
+        }
+        return parsePostfix(parsePrimary());
+    }
+
+    private Expr parsePrimary() throws IOException {
+        switch (token.sym) {
+            case sym.IDENTIFIER:
+                return new IdentifierExpr(identifier());
+            case sym.INTEGER_LITERAL: {
+                int num = (Integer) token.value;
+                next();
+                return new IntegerLiteralExpr(num);
+            }
+            case sym.TRUE:
+                next();
+                return new TrueExpr();
+            case sym.FALSE:
+                next();
+                return new FalseExpr();
+            case sym.THIS:
+                next();
+                return new ThisExpr();
+            case sym.LPAREN: {
+                next();
+                var e = parseExpression(1);
+                expect(sym.RPAREN);
+                return e;
+            }
+            case sym.NEW:
+                next();
+                if (token.sym == sym.INT) {
+                    next();
+                    expect(sym.LSQUARE_BRACK);
+                    var lengthExpr = parseExpression(1);
+                    expect(sym.RSQUARE_BRACK);
+                    return new NewIntArrayExpr(lengthExpr);
+                }
+                var classId = identifier();
+                expect(sym.LPAREN);
+                expect(sym.RPAREN);
+                return new NewObjectExpr(classId);
+            default:
+                throw syntaxError();
+        }
+    }
+
+    private Expr parsePostfix(Expr e) throws IOException {
+        while (true) {
+            if (token.sym == sym.LSQUARE_BRACK) {
+                next();
+                var indexExpr = parseExpression(1);
+                expect(sym.RSQUARE_BRACK);
+                e = new ArrayAccessExpr(e, indexExpr);
+            } else if (token.sym == sym.DOT) {
+                next();
+                if (token.sym == sym.LENGTH) {
+                    next();
+                    e = new ArrayLengthExpr(e);
+                } else {
+                    var methodId = identifier();
+                    e = new MethodCallExpr(e, methodId, parseActuals());
+                }
+            } else {
+                return e;
+            }
+        }
+    }
+
+    private List<Expr> parseActuals() throws IOException {
+        expect(sym.LPAREN);
+        var actuals = new ArrayList<Expr>();
+        if (token.sym != sym.RPAREN) {
+            actuals.add(parseExpression(1));
+            while (token.sym == sym.COMMA) {
+                next();
+                actuals.add(parseExpression(1));
+            }
+        }
+        expect(sym.RPAREN);
+        return actuals;
+    }
+}
@@ -1,6 +1,7 @@
 package LLVM;
 
 import ast.AstNode;
+import ast.SymbolTableItem;
 import ast.SymbolType;
 
 import java.nio.file.attribute.UserDefinedFileAttributeView;
@@ -10,10 +11,13 @@ public interface ILLVMRegisterAllocator {
     /* convert int x=7 to %x = alloca i 32
      * Responsible only for retrieving the register which the value resides in memory
      * Call examples - declaring a variable and assigning/using a variable
-     * The node is needed for context. In order to infer the scope and context of the name
-     * -> allocateNewRegister("x", (AssignmentExpr) assign) */
+     * The node is needed for context. It's the scope the name is in, the name's MethodDecl
+     * -> allocateNewRegister("x", (MethodDecl) method) */
     String allocateAddressRegister(String name, SymbolType type, AstNode node);
 
+    /* The same for a variable whose declaration is already known, e.g. from its Binding */
+    String allocateAddressRegister(SymbolTableItem item);
+
     /* used in complex expressions such as x = y + z
     * Call examples - saving temporary results of expressions
     * for example %5 = add nsw i 32 3 , 4 */
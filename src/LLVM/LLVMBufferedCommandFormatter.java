@@ -0,0 +1,221 @@
+package LLVM;
+
+import java.util.List;
+
+/*
+ * Formats the same commands as LLVMCommandFormatter, but appends them piece by piece into a single line buffer
+ * that's reused for every command, instead of going through String.format and building intermediate strings.
+ * The returned buffer is only valid until the next call.
+ * */
+public class LLVMBufferedCommandFormatter implements ILLVMCommandFormatter {
+
+    private final StringBuilder line = new StringBuilder(256);
+
+    private StringBuilder newLine() {
+        line.setLength(0);
+        return line;
+    }
+
+    private static String formatComparisonType(ComparisonType type) {
+        switch (type) {
+            case Equals:
+                return "eq";
+            case Less:
+                return "slt";
+            case LessOrEquals:
+                return "sle";
+            case GreatOrEquals:
+                return "sge";
+        }
+        return "";
+    }
+
+    private void appendParams(List<LLVMMethodParam> params) {
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                line.append(", ");
+            }
+            line.append(params.get(i).getType().toString()).append(' ').append(params.get(i).getName());
+        }
+    }
+
+    // "%s = <operation> <type> first, second"
+    private CharSequence formatBinary(String register, String operation, LLVMType resultType, String first, String second) {
+        return newLine().append(register).append(" = ").append(operation).append(' ').append(resultType.toString())
+                .append(' ').append(first).append(", ").append(second).append('\n');
+    }
+
+    @Override
+    public CharSequence formatExternalMethodDeclaration(LLVMType retType, String methodName, String params) {
+        return newLine().append("declare ").append(retType.toString()).append(" @").append(methodName)
+                .append('(').append(params).append(") {\n");
+    }
+
+    @Override
+    public CharSequence formatMethodDefinition(LLVMType retType, String name, List<LLVMMethodParam> params) {
+        newLine().append("define ").append(retType.toString()).append(" @").append(name).append('(');
+        appendParams(params);
+        return line.append(") {\n");
+    }
+
+    @Override
+    public CharSequence formatReturn(LLVMType retType, String register) {
+        return newLine().append("ret ").append(retType.toString()).append(' ').append(register).append('\n');
+    }
+
+    @Override
+    public CharSequence formatAlloca(String register, LLVMType type) {
+        return newLine().append(register).append(" = alloca ").append(type.toString()).append('\n');
+    }
+
+    @Override
+    public CharSequence formatStore(LLVMType sourceType, String sourceRegister, String destRegister) {
+        String type = sourceType.toString();
+        return newLine().append("store ").append(type).append(' ').append(sourceRegister).append(", ")
+                .append(type).append("* ").append(destRegister).append('\n');
+    }
+
+    @Override
+    public CharSequence formatLoad(String register, LLVMType valueType, String sourcePointer) {
+        String type = valueType.toString();
+        return newLine().append(register).append(" = load ").append(type).append(", ").append(type).append("* ")
+                .append(sourcePointer).append('\n');
+    }
+
+    @Override
+    public CharSequence formatCall(String register, LLVMType retType, String methodName, List<LLVMMethodParam> params) {
+        newLine();
+        if (retType != LLVMType.Void) {
+            line.append(register).append(" = ");
+        }
+        line.append("call ").append(retType.toString());
+        if (retType == LLVMType.Void && methodName.equals("@print_int")) {
+            line.append(" (i32)");
+        }
+        line.append(' ').append(methodName).append('(');
+        if (params != null) {
+            appendParams(params);
+        }
+        return line.append(")\n");
+    }
+
+    @Override
+    public CharSequence formatAdd(String register, LLVMType resultType, String first, String second) {
+        return formatBinary(register, "add", resultType, first, second);
+    }
+
+    @Override
+    public CharSequence formatAnd(String register, LLVMType resultType, String first, String second) {
+        return formatBinary(register, "and", resultType, first, second);
+    }
+
+    @Override
+    public CharSequence formatSub(String register, LLVMType resultType, String first, String second) {
+        return formatBinary(register, "sub", resultType, first, second);
+    }
+
+    @Override
+    public CharSequence formatMul(String register, LLVMType resultType, String first, String second) {
+        return formatBinary(register, "mul", resultType, first, second);
+    }
+
+    @Override
+    public CharSequence formatXOR(String register, LLVMType resultType, String first, String second) {
+        return formatBinary(register, "xor", resultType, first, second);
+    }
+
+    @Override
+    public CharSequence formatCompare(String register, ComparisonType compareType, LLVMType type,
+                                      String register1, String register2) {
+        return newLine().append(register).append(" = icmp ").append(formatComparisonType(compareType)).append(' ')
+                .append(type.toString()).append(' ').append(register1).append(", ").append(register2).append('\n');
+    }
+
+    @Override
+    public CharSequence formatConditionalBreak(String booleanRegister, String ifLabel, String elseLabel) {
+        return newLine().append("br i1 ").append(booleanRegister).append(", label %").append(ifLabel)
+                .append(", label %").append(elseLabel).append('\n');
+    }
+
+    @Override
+    public CharSequence formatBreak(String label) {
+        return newLine().append("br label %").append(label).append('\n');
+    }
+
+    @Override
+    public CharSequence formatLabelName(String labelName) {
+        return newLine().append(labelName).append(":\n");
+    }
+
+    @Override
+    public CharSequence formatBitcast(String register, LLVMType fromType, String fromRegister, LLVMType toType) {
+        return newLine().append(register).append(" = bitcast ").append(fromType.toString()).append("* ")
+                .append(fromRegister).append(" to ").append(toType.toString()).append("*\n");
+    }
+
+    @Override
+    public CharSequence formatBitcast(String register, LLVMType fromType, String fromRegister, LLVMMethodSignature signature) {
+        newLine().append(register).append(" = bitcast ").append(fromType.toString()).append("* ")
+                .append(fromRegister).append(" to ");
+        signature.appendShortString(line);
+        return line.append("*\n");
+    }
+
+    private CharSequence finishGetElementPtr(String pointerRegister, String rowIndex, String columnIndex) {
+        line.append("* ").append(pointerRegister).append(", i32 ").append(rowIndex);
+        if (!columnIndex.isEmpty()) {
+            line.append(", i32 ").append(columnIndex);
+        }
+        return line.append('\n');
+    }
+
+    @Override
+    public CharSequence formatGetElementPtr(String register, LLVMType type, String pointerRegister, String rowIndex, String columnIndex) {
+        String typeString = type.toString();
+        newLine().append(register).append(" = getelementptr ").append(typeString).append(", ").append(typeString);
+        return finishGetElementPtr(pointerRegister, rowIndex, columnIndex);
+    }
+
+    @Override
+    public CharSequence formatArrayGetElementPtr(String register, LLVMType elementType, int length, String pointerRegister, String rowIndex, String columnIndex) {
+        String elementTypeString = elementType.toString();
+        newLine().append(register).append(" = getelementptr [").append(length).append(" x ").append(elementTypeString)
+                .append("], [").append(length).append(" x ").append(elementTypeString).append(']');
+        return finishGetElementPtr(pointerRegister, rowIndex, columnIndex);
+    }
+
+    @Override
+    public CharSequence formatConstant(String register, int length, LLVMType type, String constantValue) {
+        return newLine().append('@').append(register).append(" = constant [").append(length).append(" x ")
+                .append(type.toString()).append("] c").append(constantValue).append('\n');
+    }
+
+    @Override
+    public CharSequence formatGlobalVTable(String globalVtableName, List<LLVMMethodSignature> signatures) {
+        newLine().append(globalVtableName).append(" = global [").append(signatures.size()).append(" x i8*] [");
+        for (int i = 0; i < signatures.size(); i++) {
+            if (i > 0) {
+                line.append(", ");
+            }
+            signatures.get(i).appendTo(line);
+        }
+        return line.append("]\n");
+    }
+
+    @Override
+    public CharSequence formatPhi(String register, String valueIfLabel1, String label1, String valueIfLabel2, String label2) {
+        return newLine().append(register).append(" = phi i1 [").append(valueIfLabel1).append(", %").append(label1)
+                .append("], [").append(valueIfLabel2).append(", %").append(label2).append("]\n");
+    }
+
+    // Names are kept by the caller, so unlike the commands they must be new strings
+    @Override
+    public String formatRegisterName(String register) {
+        return "%" + register;
+    }
+
+    @Override
+    public String formatFormalArgName(String formalArg) {
+        return "." + formalArg;
+    }
+}
@@ -161,8 +161,7 @@ public class LLVMCommandFormatter implements ILLVMCommandFormatter {
                 fromRegister, signature.toShortString());
     }
 
-    @Override
-    public String formatGetElementPtr(String register, LLVMType type, String pointerRegister, String rowIndex, String columnIndex) {
+    private String formatGetElementPtr(String register, String type, String pointerRegister, String rowIndex, String columnIndex) {
         String secondIndex = "";
         if (columnIndex != "") {
             secondIndex = String.format(", i32 %s", columnIndex);
@@ -171,6 +170,18 @@ public class LLVMCommandFormatter implements ILLVMCommandFormatter {
                 register, type, type, pointerRegister, rowIndex, secondIndex);
     }
 
+    @Override
+    public String formatGetElementPtr(String register, LLVMType type, String pointerRegister, String rowIndex, String columnIndex) {
+        return formatGetElementPtr(register, type.toString(), pointerRegister, rowIndex, columnIndex);
+    }
+
+    @Override
+    public String formatArrayGetElementPtr(String register, LLVMType elementType, int length, String pointerRegister, String rowIndex, String columnIndex) {
+        // LLVMType.setLength mutates a shared enum constant, so array types are formatted locally instead
+        String arrayType = String.format("[%d x %s]", length, elementType.toString());
+        return formatGetElementPtr(register, arrayType, pointerRegister, rowIndex, columnIndex);
+    }
+
     @Override
     public String formatConstant(String register, int length, LLVMType type, String constantValue) {
         return String.format("@%s = constant [%d x %s] c%s\n", register, length, type.toString(), constantValue);
@@ -1,6 +1,5 @@
 package LLVM;
 
-import java.util.ArrayList;
 import java.util.List;
 
 public class LLVMMethodSignature {
@@ -14,23 +13,38 @@ public class LLVMMethodSignature {
         this.params=params;
     }
 
-    public String toShortString() {
-        List<String> paramsString = new ArrayList<>();
-        for (var param: params) {
-            paramsString.add(param.getType().toString());
+    private void appendParamTypes(StringBuilder out) {
+        for (int i = 0; i < params.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            out.append(params.get(i).getType().toString());
         }
+    }
 
-        return String.format("%s (%s)", ret.toString(), String.join(", ", paramsString));
+    // "i32 (i8*, i32)"
+    void appendShortString(StringBuilder out) {
+        out.append(ret.toString()).append(" (");
+        appendParamTypes(out);
+        out.append(')');
     }
 
-    public String toString() {
-        List<String> paramsString = new ArrayList<>();
-        for (var param: params) {
-            paramsString.add(param.getType().toString());
-        }
+    // "i8* bitcast (i32 (i8*, i32)* @A.foo to i8*)"
+    void appendTo(StringBuilder out) {
+        out.append("i8* bitcast (").append(ret.toString()).append(" (");
+        appendParamTypes(out);
+        out.append(")* ").append(name).append(" to i8*)");
+    }
 
-        return String.format("i8* bitcast (%s (%s)* %s to i8*)", ret.toString(),
-                String.join(", ", paramsString),
-                name);
+    public String toShortString() {
+        StringBuilder shortString = new StringBuilder();
+        appendShortString(shortString);
+        return shortString.toString();
+    }
+
+    public String toString() {
+        StringBuilder string = new StringBuilder();
+        appendTo(string);
+        return string.toString();
     }
 }
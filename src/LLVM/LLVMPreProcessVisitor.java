@@ -9,21 +9,33 @@ public class LLVMPreProcessVisitor implements IVisitorWithField<String> {
     private IAstToSymbolTable astToSymbolTable;
     private ILLVMCommandFormatter formatter;
     private ILLVMRegisterAllocator registerAllocator;
-    private StringBuilder stringBuilder;
+    private IOutputSink sink;
     private ClassInfo classInfo;
+    private boolean collectClassInfo;
 
     public LLVMPreProcessVisitor(IAstToSymbolTable astToSymbolTable, ILLVMCommandFormatter formatter, ILLVMRegisterAllocator registerAllocator) {
+        this(astToSymbolTable, formatter, registerAllocator, null, new StringOutputSink());
+    }
+
+    /*
+     * classInfo may be one already built by ClassInfo.of, otherwise the classes are collected while visiting.
+     * The vtables are emitted into sink, getField() only returns them when it's a StringOutputSink.
+     * */
+    public LLVMPreProcessVisitor(IAstToSymbolTable astToSymbolTable, ILLVMCommandFormatter formatter, ILLVMRegisterAllocator registerAllocator, ClassInfo classInfo, IOutputSink sink) {
         this.astToSymbolTable = astToSymbolTable;
         this.formatter = formatter;
         this.registerAllocator = registerAllocator;
-        this.stringBuilder = new StringBuilder();
-        this.classInfo = new ClassInfo();
+        this.sink = sink;
+        this.collectClassInfo = classInfo == null;
+        this.classInfo = collectClassInfo ? new ClassInfo() : classInfo;
     }
 
     private void printClassVTAble(SymbolTableItem classItem) {
         String globalVTableName = registerAllocator.allocateVTableRegister(classItem.getId());
-        classInfo.addClassInfo(classItem.getId(), classItem.getVTable(), (ClassDecl)classItem.getNode());
-        stringBuilder.append(formatter.formatGlobalVTable(globalVTableName, classItem.getVTable().getMethods().values().stream()
+        if (collectClassInfo) {
+            classInfo.addClassInfo(classItem.getId(), classItem.getVTable(), (ClassDecl) classItem.getNode());
+        }
+        sink.append(formatter.formatGlobalVTable(globalVTableName, classItem.getVTable().getMethods().values().stream()
                 .map(MethodSignature::toLLVMSignature).collect( Collectors.toList())));
     }
 
@@ -38,7 +50,7 @@ public class LLVMPreProcessVisitor implements IVisitorWithField<String> {
     @Override
     public void visit(ClassDecl classDecl) {
          SymbolTable symbolTable = astToSymbolTable.getSymbolTable(classDecl);
-         SymbolTableItem classItem = symbolTable.get(new SymbolItemKey(classDecl.name(), SymbolType.Class));
+         SymbolTableItem classItem = symbolTable.get(classDecl.name(), SymbolType.Class);
          printClassVTAble(classItem);
     }
 
@@ -215,7 +227,7 @@ public class LLVMPreProcessVisitor implements IVisitorWithField<String> {
 
     @Override
     public String getField() {
-        return stringBuilder.toString();
+        return sink.toString();
     }
 
     public ClassInfo getClassInfo() { return this.classInfo; }
@@ -4,41 +4,44 @@ import ast.*;
 
 import java.util.HashMap;
 import java.util.Map;
-import java.util.NoSuchElementException;
 
 public class LLVMRegisterAllocator implements ILLVMRegisterAllocator {
 
     private IAstToSymbolTable _astToSymbolTable;
     private int _counter;
+    private int _allocatedTempRegisters;
     private Map<String,String> _classIDToVTable;
 
     public LLVMRegisterAllocator(IAstToSymbolTable symbolTable) {
         _astToSymbolTable = symbolTable;
         _classIDToVTable = new HashMap<>();
         _counter = 0;
+        _allocatedTempRegisters = 0;
     }
 
     @Override
     public String allocateAddressRegister(String name, SymbolType type, AstNode node) {
         SymbolTable symbolTable = _astToSymbolTable.getSymbolTable(node);
-        try {
-            SymbolTableItem item = symbolTable.get(new SymbolItemKey(name, type));
-            if (null == item.getRegisterId()) {
-                item.setRegisterId("%" + name);
-            }
-
-            return item.getRegisterId();
-
-        }
-        catch (NoSuchElementException e) {
+        SymbolTableItem item = symbolTable.get(name, type);
+        if (item == SymbolTable.NOT_FOUND) {
             return "Error, variable does not exist";
         }
+        return allocateAddressRegister(item);
+    }
+
+    @Override
+    public String allocateAddressRegister(SymbolTableItem item) {
+        if (null == item.getRegisterId()) {
+            item.setRegisterId("%" + item.getId());
+        }
+        return item.getRegisterId();
     }
 
     @Override
     public String allocateNewTempRegister() {
         String result = "%_" + String.valueOf(_counter);
         _counter++;
+        _allocatedTempRegisters++;
         return result;
     }
 
@@ -56,4 +59,9 @@ public class LLVMRegisterAllocator implements ILLVMRegisterAllocator {
     public void resetCounter() {
         _counter = 0;
     }
+
+    // Unlike the counter, this isn't reset between methods
+    public int getAllocatedTempRegistersCount() {
+        return _allocatedTempRegisters;
+    }
 }
@@ -1,26 +1,248 @@
 import LLVM.ILLVMCommandFormatter;
-import LLVM.LLVMCommandFormatter;
+import LLVM.LLVMBufferedCommandFormatter;
 import LLVM.LLVMRegisterAllocator;
 import Semantics.*;
 import ast.*;
-import ast.LLVMPreProcessVisitor;
 
 import java.io.*;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] commandLine) {
         try {
+            var options = MainOptions.parse(commandLine);
+            var args = options.arguments();
             var inputMethod = args[0];
-            var action = args[1];
-            var filename = args[args.length - 2];
-            var outfilename = args[args.length - 1];
 
-            Program prog;
+            if (inputMethod.equals("batch")) {
+                // batch <output dir> <input file or dir>...
+                var inputs = new ArrayList<File>();
+                for (int i = 2; i < args.length; i++) {
+                    inputs.add(new File(args[i]));
+                }
+                var batchCompiler = new BatchCompiler(new File(args[1]), inputs);
+                int failed;
+                try {
+                    failed = batchCompiler.run(System.out);
+                } catch (IllegalArgumentException e) {
+                    System.err.print(e.getMessage() + "\n");
+                    System.exit(1);
+                    return;
+                }
+                if (failed > 0) {
+                    System.exit(1);
+                }
+                return;
+            }
+
+            if (inputMethod.equals("server")) {
+                // server <loopback port | unix socket path>
+                var server = new CompileServer(args[1], options);
+                server.serve();
+                return;
+            }
+
+            runAction(args, options);
+
+        } catch (SyntaxErrorException e) {
+            System.err.print(e.getMessage() + "\n");
+            System.exit(1);
+        } catch (FileNotFoundException e) {
+            System.out.println("Error reading file: " + e);
+            e.printStackTrace();
+        } catch (Exception e) {
+            System.out.println("General error: " + e);
+            e.printStackTrace();
+        }
+    }
+
+    /*
+     * Runs a single "<input method> <action> ... <input file> <output file>" command.
+     * Errors are thrown rather than printed, so the compile server can report them back to its client.
+     * When caching, an identical earlier command's output is reused instead.
+     * */
+    public static void runAction(String[] args, MainOptions options) throws Exception {
+        var stats = options.createStats();
+        try {
+            runAction(args, options, stats);
+        } finally {
+            options.printStats(stats, System.err);
+        }
+    }
+
+    private static void runAction(String[] args, MainOptions options, CompilerStats stats) throws Exception {
+        var cache = options.createCache();
+        if (cache == null) {
+            executeAction(args, null, options.isFastParser(), stats);
+            return;
+        }
+
+        var output = Path.of(args[args.length - 1]);
+        stats.start("cache lookup");
+        // The output's name isn't part of the key, but its extension can pick the format (.mjast, .patch)
+        String outputName = output.getFileName().toString();
+        String key = cache.key(Arrays.asList(args).subList(0, args.length - 1),
+                outputName.substring(outputName.lastIndexOf('.') + 1));
+        boolean restored = cache.restore(key, output);
+        stats.stop();
+        if (restored) {
+            return;
+        }
+        executeAction(args, options.isIncremental() ? cache : null, options.isFastParser(), stats);
+        stats.start("cache store");
+        cache.store(key, output);
+        stats.stop();
+    }
+
+    // fragmentCache may be null, otherwise compile reuses the LLVM of unchanged classes
+    private static void executeAction(String[] args, ILLVMFragmentCache fragmentCache, boolean fastParser,
+                                      CompilerStats stats) throws Exception {
+        var inputMethod = args[0];
+        var action = args[1];
+        var filename = args[args.length - 2];
+        var outfilename = args[args.length - 1];
+
+        stats.start(inputMethod);
+        Program prog = readProgram(inputMethod, filename, fastParser);
+        stats.stop();
+        stats.count("ast nodes", () -> {
+            var nodeCounter = new AstNodeCountVisitor();
+            nodeCounter.visit(prog);
+            return nodeCounter.getField();
+        });
+        // marshal, rename and apply-patch write the output file themselves, so it mustn't be opened twice
+        boolean writesAst = action.equals("marshal") || action.equals("rename") || action.equals("apply-patch");
+        var outFile = writesAst ? null
+                : new PrintWriter(new OutputStreamWriter(CompressedFiles.openOutput(outfilename)));
+        // print and compile stream into outFile, so a failure halfway would otherwise leave a partial output
+        boolean succeeded = false;
+
+        try {
+            if (action.equals("marshal")) {
+                stats.start("marshal");
+                writeProgram(prog, outfilename);
+                stats.stop();
+            } else if (action.equals("print")) {
+                stats.start("AstPrintVisitor");
+                PrintProgram(prog, outFile);
+                stats.stop();
+
+            } else if (action.equals("semantic")) {
+                String outputMessage = "OK\n";
+                try {
+                    checkSemantics(prog, ProgramAnalyses.of(prog, stats), stats);
+                } catch (InvalidSemanticsException e) {
+                    outputMessage = "ERROR\n";
+                }
+
+                stats.start("write");
+                outFile.write(outputMessage);
+                outFile.flush();
+                stats.stop();
+
+            } else if (action.equals("compile")) {
+                var analyses = ProgramAnalyses.of(prog, stats);
+                compileProgram(prog, analyses, fragmentCache, stats, new WriterOutputSink(outFile));
+                stats.start("write");
+                outFile.flush();
+                stats.stop();
+
+            } else if (action.equals("check-compile")) {
+                // The LLVM when the program is valid, otherwise the "ERROR" semantic would have written
+                ProgramAnalyses analyses = null;
+                try {
+                    analyses = ProgramAnalyses.of(prog, stats);
+                    checkSemantics(prog, analyses, stats);
+                } catch (InvalidSemanticsException e) {
+                    analyses = null;
+                }
+
+                if (analyses != null) {
+                    compileProgram(prog, analyses, fragmentCache, stats, new WriterOutputSink(outFile));
+                } else {
+                    outFile.write("ERROR\n");
+                }
+                stats.start("write");
+                outFile.flush();
+                stats.stop();
+
+            } else if (action.equals("rename")) {
+                var type = args[2];
+                var originalName = args[3];
+                var originalLine = Integer.parseInt(args[4]);
+                var newName = args[5];
+
+                boolean isMethod;
+                if (type.equals("var")) {
+                    isMethod = false;
+                } else if (type.equals("method")) {
+                    isMethod = true;
+                } else {
+                    throw new IllegalArgumentException("unknown rename type " + type);
+                }
+
+                IRenameVisitor astChanger;
 
-            if (inputMethod.equals("parse")) {
-                FileReader fileReader = new FileReader(new File(filename));
+                if (isMethod) {
+                    var hierarchy = new ClassHierarchyForest(prog);
+                    // We first rename the calls and only then the signatures
+                    var predecessor = hierarchy.getHighestClassTreeByMethod(originalLine);
+                    astChanger = new AstMethodCallsRenameVisitor(hierarchy, predecessor,
+                            originalName, originalLine, newName);
+                } else {
+                    astChanger = new AstFieldRenameVisitor(originalName, originalLine, newName);
+                }
+                stats.start(astChanger.getClass().getSimpleName());
+                astChanger.visit(prog);
+                stats.stop();
+                if (AstRenamePatch.isPatchFile(outfilename)) {
+                    // Only the renamed nodes, instead of the whole AST
+                    stats.start("patch");
+                    AstRenamePatch.of(prog, astChanger.renamedNodes(), newName).write(outfilename);
+                    stats.stop();
+                } else {
+                    stats.start("marshal");
+                    writeProgram(prog, outfilename);
+                    stats.stop();
+                }
+
+            } else if (action.equals("apply-patch")) {
+                // The AST a rename would have written, from the patch it wrote instead
+                var patch = AstRenamePatch.read(new File(args[2]));
+                stats.start("apply patch");
+                patch.apply(prog);
+                stats.stop();
+                stats.start("marshal");
+                writeProgram(prog, outfilename);
+                stats.stop();
+
+            } else {
+                throw new IllegalArgumentException("unknown command line action " + action);
+            }
+            succeeded = true;
+        } finally {
+            if (outFile != null) {
+                outFile.flush();
+                outFile.close();
+            }
+            if (!succeeded && (action.equals("print") || action.equals("compile") || action.equals("check-compile"))) {
+                new FileOutputStream(outfilename).close();
+            }
+        }
+    }
+
+    public static Program readProgram(String inputMethod, String filename) throws Exception {
+        return readProgram(inputMethod, filename, false);
+    }
+
+    // fastParser picks FastParser over the CUP Parser, it builds the same AST
+    public static Program readProgram(String inputMethod, String filename, boolean fastParser) throws Exception {
+        if (inputMethod.equals("parse")) {
+            // Compressed sources (.java.gz) are decompressed on the fly, others are read from a mapping
+            try (var fileReader = CompressedFiles.openReader(new File(filename))) {
 
                 // Debug to see all tokens the lexer is producing
 //                var x = new Parser(new Lexer(fileReader));
@@ -30,121 +252,85 @@ public class Main {
 //                    i++;
 //                }
 
+                if (fastParser && FastParser.worthParsingInParallel(new File(filename).length())) {
+                    return FastParser.parseInParallel(new Lexer(fileReader));
+                } else if (fastParser) {
+                    return new FastParser(new Lexer(fileReader)).parse();
+                }
                 Parser p = new Parser(new Lexer(fileReader));
-                prog = (Program) p.parse().value;
-
-            } else if (inputMethod.equals("unmarshal")) {
-                AstXMLSerializer xmlSerializer = new AstXMLSerializer();
-                prog = xmlSerializer.deserialize(new File(filename));
-            } else {
-                throw new UnsupportedOperationException("unknown input method " + inputMethod);
+                return (Program) p.parse().value;
             }
-            var outFile = new PrintWriter(outfilename);
-
-            try {
-                if (action.equals("marshal")) {
-                    AstXMLSerializer xmlSerializer = new AstXMLSerializer();
-                    xmlSerializer.serialize(prog, outfilename);
-                } else if (action.equals("print")) {
-                    PrintProgram(prog, outFile);
-
-                } else if (action.equals("semantic")) {
-
-                    // Was not sure that using String will work because it is immutable
-                    StringBuilder outputMessage = new StringBuilder("OK\n");
-                    Collection<ClassSemanticsVisitor> semanticCheckers = new ArrayList<>();
-
-                    try {
-                        var hierarchy = new ClassHierarchyForest(prog);
-
-                        IVisitorWithField<IAstToSymbolTable> symbolTableVisitor = new SymbolTableVisitor<>();
-                        symbolTableVisitor.visit(prog);
-                        var astToSymbolTable = symbolTableVisitor.getField();
-                        if(astToSymbolTable == null)
-                            throw new InvalidSemanticsException();
-                        semanticCheckers.add(new TypeAnalysisVisitor(astToSymbolTable, hierarchy));
-                        // Add more visitors
-                        semanticCheckers.add(new IdentifierSemanticsVisitor(astToSymbolTable, hierarchy));
-                        semanticCheckers.add(new InitializationCheckVisitor(astToSymbolTable, hierarchy));
-
-                        for(ClassSemanticsVisitor visitor : semanticCheckers) {
-                            visitor.visit(prog);
-                            if (!visitor.getResult()) {
-                                throw new InvalidSemanticsException();
-                            }
-
-                        }
-                    }
-                    catch (InvalidSemanticsException e) {
-                        outputMessage = new StringBuilder("ERROR\n");
-                    }
-
-                    outFile.write(outputMessage.toString());
-
-                } else if (action.equals("compile")) {
-                    var hierarchy = new ClassHierarchyForest(prog);
-                    IVisitorWithField<IAstToSymbolTable> symbolTableVisitor = new SymbolTableVisitor<>();
-                    symbolTableVisitor.visit(prog);
-                    var astToSymbolTable = symbolTableVisitor.getField();
-                    var registerAllocator = new LLVMRegisterAllocator(astToSymbolTable);
-
-
-                    ILLVMCommandFormatter commandFormatter = new LLVMCommandFormatter();
-                    Visitor preProcessVisitor = new LLVMPreProcessVisitor(astToSymbolTable, commandFormatter, registerAllocator);
-                    var llvmPrinter = new LLVMPrintVisitor(astToSymbolTable, registerAllocator, commandFormatter, hierarchy);
-                    llvmPrinter.visit(prog);
-                    outFile.write(llvmPrinter.getString());
-
-                } else if (action.equals("rename")) {
-                    var type = args[2];
-                    var originalName = args[3];
-                    var originalLine = Integer.parseInt(args[4]);
-                    var newName = args[5];
-                    AstXMLSerializer xmlSerializer = new AstXMLSerializer();
-
-                    boolean isMethod;
-                    if (type.equals("var")) {
-                        isMethod = false;
-                    } else if (type.equals("method")) {
-                        isMethod = true;
-                    } else {
-                        throw new IllegalArgumentException("unknown rename type " + type);
-                    }
-
-                    Visitor astChanger;
-
-                    if (isMethod) {
-                        var hierarchy = new ClassHierarchyForest(prog);
-                        // We first rename the calls and only then the signatures
-                        var predecessor = hierarchy.getHighestClassTreeByMethod(originalLine);
-                        astChanger = new AstMethodCallsRenameVisitor(hierarchy, predecessor,
-                                originalName, originalLine, newName);
-                    } else {
-                        astChanger = new AstFieldRenameVisitor(originalName, originalLine, newName);
-                    }
-                    astChanger.visit(prog);
-                    xmlSerializer.serialize(prog, outfilename);
+        } else if (inputMethod.equals("unmarshal") && AstBinarySerializer.isBinaryFile(filename)) {
+            return new AstBinarySerializer().deserialize(new File(filename));
+        } else if (inputMethod.equals("unmarshal")) {
+            AstXMLSerializer xmlSerializer = new AstXMLSerializer();
+            return xmlSerializer.deserialize(new File(filename));
+        } else {
+            throw new UnsupportedOperationException("unknown input method " + inputMethod);
+        }
+    }
 
-                } else {
-                    throw new IllegalArgumentException("unknown command line action " + action);
-                }
-            } finally {
-                outFile.flush();
-                outFile.close();
-            }
+    // A .mjast output gets the binary encoding, anything else the XML
+    public static void writeProgram(Program prog, String outfilename) throws IOException {
+        if (AstBinarySerializer.isBinaryFile(outfilename)) {
+            new AstBinarySerializer().serialize(prog, outfilename);
+        } else {
+            new AstXMLSerializer().serialize(prog, outfilename);
+        }
+    }
 
-        } catch (FileNotFoundException e) {
-            System.out.println("Error reading file: " + e);
-            e.printStackTrace();
-        } catch (Exception e) {
-            System.out.println("General error: " + e);
-            e.printStackTrace();
+    public static void checkSemantics(Program prog, ProgramAnalyses analyses, CompilerStats stats) throws InvalidSemanticsException {
+        var astToSymbolTable = analyses.astToSymbolTable();
+        if (astToSymbolTable == null)
+            throw new InvalidSemanticsException();
+
+        var hierarchy = analyses.hierarchy();
+        Collection<ClassSemanticsVisitor> semanticCheckers = new ArrayList<>();
+        semanticCheckers.add(new TypeAnalysisVisitor(astToSymbolTable, hierarchy, analyses.classInfo()));
+        // Add more visitors
+        semanticCheckers.add(new IdentifierSemanticsVisitor(astToSymbolTable, hierarchy));
+        semanticCheckers.add(new InitializationCheckVisitor(astToSymbolTable, hierarchy));
+
+        for (ClassSemanticsVisitor visitor : semanticCheckers) {
+            stats.start(visitor.getClass().getSimpleName());
+            visitor.visit(prog);
+            stats.stop();
+            if (!visitor.getResult()) {
+                throw new InvalidSemanticsException();
+            }
         }
     }
 
+    // The LLVM is streamed into sink as it's generated, rather than built up in memory first
+    public static void compileProgram(Program prog, ProgramAnalyses analyses, ILLVMFragmentCache fragmentCache,
+                                      CompilerStats stats, IOutputSink sink) {
+        compileProgram(prog, analyses, new LLVMBufferedCommandFormatter(), fragmentCache, stats, sink);
+    }
+
+    public static void compileProgram(Program prog, ProgramAnalyses analyses, ILLVMCommandFormatter commandFormatter,
+                                      ILLVMFragmentCache fragmentCache, CompilerStats stats, IOutputSink sink) {
+        var hierarchy = analyses.hierarchy();
+        var astToSymbolTable = analyses.astToSymbolTable();
+        var registerAllocator = new LLVMRegisterAllocator(astToSymbolTable);
+
+        stats.start("LLVMPreProcessVisitor");
+        var preProcessVisitor = new LLVMPreProcessVisitor(astToSymbolTable, commandFormatter, registerAllocator,
+                analyses.classInfo(), sink);
+        preProcessVisitor.visit(prog);
+        stats.stop();
+
+        stats.start("LLVMPrintVisitor");
+        var llvmPrinter = new LLVMPrintVisitor(astToSymbolTable, registerAllocator, commandFormatter, hierarchy, sink);
+        llvmPrinter.setPreProcess(preProcessVisitor);
+        llvmPrinter.setFragmentCache(fragmentCache);
+        llvmPrinter.visit(prog);
+        stats.stop();
+        stats.count("llvm instructions", llvmPrinter::getInstructionsCount);
+        stats.count("llvm registers", registerAllocator::getAllocatedTempRegistersCount);
+    }
+
     public static void PrintProgram(Program node, PrintWriter outFile) {
-        var astPrinter = new AstPrintVisitor();
+        var astPrinter = new AstPrintVisitor(new WriterOutputSink(outFile));
         astPrinter.visit(node);
-        outFile.write(astPrinter.getString());
     }
 }
@@ -0,0 +1,91 @@
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Splits the "--name=value" options out of the command line, leaving the positional arguments
+ * Main has always used (input method, action, ..., input file, output file).
+ * */
+public class MainOptions {
+    private static final long DEFAULT_CACHE_SIZE = 256L * 1024 * 1024;
+
+    private final List<String> arguments = new ArrayList<>();
+    private Path cacheDir = null;
+    private long cacheSize = DEFAULT_CACHE_SIZE;
+    private boolean incremental = false;
+    private boolean fastParser = false;
+    private String statsFormat = null;
+
+    public static MainOptions parse(String[] args) {
+        var options = new MainOptions();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                options.arguments.add(arg);
+                continue;
+            }
+
+            String name = arg;
+            String value = null;
+            int equals = arg.indexOf('=');
+            if (equals != -1) {
+                name = arg.substring(0, equals);
+                value = arg.substring(equals + 1);
+            }
+
+            if (name.equals("--cache") && value != null) {
+                options.cacheDir = Path.of(value);
+            } else if (name.equals("--cache-size") && value != null) {
+                options.cacheSize = Long.parseLong(value);
+            } else if (name.equals("--incremental") && value == null) {
+                options.incremental = true;
+            } else if (name.equals("--fast") && value == null) {
+                options.fastParser = true;
+            } else if (name.equals("--stats") && (value == null || value.equals("text") || value.equals("json"))) {
+                options.statsFormat = value == null ? "text" : value;
+            } else {
+                throw new IllegalArgumentException("unknown option " + arg);
+            }
+        }
+
+        if (options.incremental && options.cacheDir == null) {
+            throw new IllegalArgumentException("--incremental keeps its class fragments in the cache, use it with --cache");
+        }
+        return options;
+    }
+
+    public String[] arguments() {
+        return arguments.toArray(new String[0]);
+    }
+
+    // null when caching wasn't requested
+    public CompilationCache createCache() {
+        if (cacheDir == null) {
+            return null;
+        }
+        return new CompilationCache(cacheDir, cacheSize);
+    }
+
+    // Whether compile should reuse the LLVM of unchanged classes from the cache
+    public boolean isIncremental() {
+        return incremental;
+    }
+
+    // Whether parse should use the hand-written FastParser instead of the CUP one, they build the same AST
+    public boolean isFastParser() {
+        return fastParser;
+    }
+
+    // A disabled CompilerStats when --stats wasn't given
+    public CompilerStats createStats() {
+        return new CompilerStats(statsFormat != null);
+    }
+
+    public void printStats(CompilerStats stats, PrintStream out) {
+        if (statsFormat == null) {
+            return;
+        }
+        out.print(statsFormat.equals("json") ? stats.toJson() : stats.toText());
+        out.flush();
+    }
+}
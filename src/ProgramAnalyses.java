@@ -0,0 +1,63 @@
+import Semantics.InvalidSemanticsException;
+import ast.*;
+
+/*
+ * The analyses both the semantic checks and compile need: the class hierarchy, the symbol tables with the names
+ * bound to their declarations and the ClassInfo. Built once per program, so checking and then compiling the same
+ * program doesn't redo them.
+ * */
+public class ProgramAnalyses {
+    private final ClassHierarchyForest hierarchy;
+    private final IAstToSymbolTable astToSymbolTable;
+    private final ClassInfo classInfo;
+
+    private ProgramAnalyses(ClassHierarchyForest hierarchy, IAstToSymbolTable astToSymbolTable, ClassInfo classInfo) {
+        this.hierarchy = hierarchy;
+        this.astToSymbolTable = astToSymbolTable;
+        this.classInfo = classInfo;
+    }
+
+    public static ProgramAnalyses of(Program prog, CompilerStats stats) throws InvalidSemanticsException {
+        // The bindings are kept by node id, see AstNodeTable
+        stats.start("AstNodeNumberingVisitor");
+        new AstNodeNumberingVisitor().visit(prog);
+        stats.stop();
+
+        stats.start("ClassHierarchyForest");
+        var hierarchy = new ClassHierarchyForest(prog);
+        stats.stop();
+
+        stats.start("SymbolTableVisitor");
+        var symbolTableVisitor = new SymbolTableVisitor<AstToSymbolTable>();
+        symbolTableVisitor.visit(prog);
+        var astToSymbolTable = symbolTableVisitor.getField();
+        stats.stop();
+        stats.count("symbol tables", symbolTableVisitor::getSymbolTablesCount);
+
+        ClassInfo classInfo = null;
+        if (astToSymbolTable != null) {
+            stats.start("NameResolutionVisitor");
+            new NameResolutionVisitor(astToSymbolTable).visit(prog);
+            stats.stop();
+
+            stats.start("ClassInfo");
+            classInfo = ClassInfo.of(prog, astToSymbolTable);
+            stats.stop();
+        }
+        return new ProgramAnalyses(hierarchy, astToSymbolTable, classInfo);
+    }
+
+    public ClassHierarchyForest hierarchy() {
+        return hierarchy;
+    }
+
+    // null when the symbol tables found the program invalid
+    public IAstToSymbolTable astToSymbolTable() {
+        return astToSymbolTable;
+    }
+
+    // null along with astToSymbolTable
+    public ClassInfo classInfo() {
+        return classInfo;
+    }
+}
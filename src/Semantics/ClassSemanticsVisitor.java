@@ -26,7 +26,9 @@ public class ClassSemanticsVisitor implements Visitor {
     public void visit(Program program) {
         program.mainClass().accept(this);
         for (ClassDecl classdecl : program.classDecls()) {
+            var event = CompilerEvents.classDecl(this, classdecl);
             classdecl.accept(this);
+            event.finish();
         }
     }
 
@@ -36,7 +38,9 @@ public class ClassSemanticsVisitor implements Visitor {
             fieldDecl.accept(this);
         }
         for (var methodDecl : classDecl.methoddecls()) {
+            var event = CompilerEvents.methodDecl(this, classDecl, methodDecl);
             methodDecl.accept(this);
+            event.finish();
         }
     }
 
@@ -1,7 +1,5 @@
 package Semantics;
 
-import LLVM.LLVMCommandFormatter;
-import LLVM.LLVMRegisterAllocator;
 import ast.*;
 
 import java.util.*;
@@ -16,7 +14,13 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
     private ClassDecl curClass;
 
     public TypeAnalysisVisitor(IAstToSymbolTable symbolTable, ClassHierarchyForest hierarchy) {
+        this(symbolTable, hierarchy, null);
+    }
+
+    // classInfo may be shared with the compilation of the same program, otherwise it's built in visit(Program)
+    public TypeAnalysisVisitor(IAstToSymbolTable symbolTable, ClassHierarchyForest hierarchy, ClassInfo classInfo) {
         super(symbolTable, hierarchy);
+        this.classInfo = classInfo;
     }
 
     private Boolean ContainsDuplicateValues(Collection<String> values1, Collection<String> values2) {
@@ -44,21 +48,14 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
     }
 
     private Boolean isSubTypeOf(AstType A, AstType B) {
-        var type = A;
-        while(type != null) {
-            if (type.equals(B))
-                return true;
-            if (!(type instanceof RefType && B instanceof RefType))
-                return false;
-
-            var info = classInfo.getClassNode(((RefType) type).id());
-            if (info.superName() == null)
-                break;
-
-            type = new RefType(info.superName());
-        }
+        if (A == null)
+            return false;
+        if (A.equals(B))
+            return true;
+        if (!(A instanceof RefType && B instanceof RefType))
+            return false;
 
-        return false;
+        return hierarchy.isParent(((RefType) B).id(), ((RefType) A).id());
     }
 
     private Boolean ContainsOverloadingMethods(List<MethodDecl> methods,
@@ -89,14 +86,16 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
 
     @Override
     public void visit(Program program) {
-        ast.LLVMPreProcessVisitor preProcessVisitor = new ast.LLVMPreProcessVisitor(symbolTable, new LLVMCommandFormatter(), new LLVMRegisterAllocator(symbolTable));
-        preProcessVisitor.visit(program);
-        this.classInfo = preProcessVisitor.getClassInfo();
+        if (classInfo == null) {
+            classInfo = ClassInfo.of(program, symbolTable);
+        }
 
         program.mainClass().accept(this);
         for (ClassDecl classdecl : program.classDecls()) {
             curClass = classdecl;
+            var event = CompilerEvents.classDecl(this, classdecl);
             classdecl.accept(this);
+            event.finish();
         }
     }
 
@@ -148,7 +147,9 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
         }
 
         for (var methodDecl : classDecl.methoddecls()) {
+            var event = CompilerEvents.methodDecl(this, classDecl, methodDecl);
             methodDecl.accept(this);
+            event.finish();
         }
 
     }
@@ -213,19 +214,8 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
                     return false;
                 }
 
-                var formalTypeId = ((RefType) formalType).id();
-                var superName = classInfo.getClassNode(((RefType) actualType).id()).superName();
-
-                while (superName != null) {
-                    if (superName.equals(formalTypeId)) {
-                        break;
-                    }
-                    superName = classInfo.getClassNode(superName).superName();
-                }
-
-                if (superName == null)
+                if (!hierarchy.isParent(((RefType) formalType).id(), ((RefType) actualType).id()))
                     return false;
-
             }
 
             return true;
@@ -358,9 +348,8 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
     public void visit(AssignArrayStatement assignArrayStatement) {
         lastType = null;
 
-        var symbolTableOfStmt = symbolTable.getSymbolTable(assignArrayStatement);
-        var symbolTableEntry = symbolTableOfStmt.get(new SymbolItemKey(assignArrayStatement.lv(), SymbolType.Var));
-        if (symbolTableEntry == null || !(symbolTableEntry.getType() instanceof IntArrayAstType)) {
+        var binding = symbolTable.getBinding(assignArrayStatement);
+        if (binding == null || !(binding.type() instanceof IntArrayAstType)) {
             valid = false; // variable not found
             return;
         }
@@ -410,15 +399,13 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
 
     @Override
     public void visit(IdentifierExpr e) {
-        var symbolTableOfStmt = symbolTable.getSymbolTable(e);
-
-        try {
-            var symbolTableEntry = symbolTableOfStmt.get(new SymbolItemKey(e.id(), SymbolType.Var));
-            lastType = symbolTableEntry.getType();
-        } catch (NoSuchElementException exc) {
-            valid = false; // expr not an int array
+        var binding = symbolTable.getBinding(e);
+        if (binding == null) {
+            valid = false; // variable not found
             lastType = null;
+            return;
         }
+        lastType = binding.type();
     }
 
     @Override
@@ -464,40 +451,33 @@ public class TypeAnalysisVisitor extends ClassSemanticsVisitor {
     }
 
     public void visit(AssignStatement assignStatement) {
-        var symbolTableOfStmt = symbolTable.getSymbolTable(assignStatement);
-
         // First we need to get the type of the lv
-        try {
-            var symbolTableEntry = symbolTableOfStmt.get(new SymbolItemKey(assignStatement.lv(), SymbolType.Var));
-            var staticType = symbolTableEntry.getType();
-            // if we are here we found the lv and it's type.]
-
+        var binding = symbolTable.getBinding(assignStatement);
+        if (binding == null) {
+            valid = false; // variable not found
+            return;
+        }
+        var staticType = binding.type();
 
-            assignStatement.rv().accept(this);
-            if (lastType == null || lastType.getClass() != staticType.getClass()) {
-                valid = false;
-                return;
-            }
+        assignStatement.rv().accept(this);
+        if (lastType == null || lastType.getClass() != staticType.getClass()) {
+            valid = false;
+            return;
+        }
 
-            // if it's a ref, we do an extra validation, that the classes inherit each other. otherwise it's not valid
-            if (staticType instanceof RefType) {
-                RefType sourceRef = (RefType) staticType;
-                RefType destRef = (RefType) lastType;
-                // A a = new B(); is allowed
+        // if it's a ref, we do an extra validation, that the classes inherit each other. otherwise it's not valid
+        if (staticType instanceof RefType) {
+            RefType sourceRef = (RefType) staticType;
+            RefType destRef = (RefType) lastType;
+            // A a = new B(); is allowed
 
-                // Just to verify they exist
-                var sourceCls = classInfo.getClassNode(sourceRef.id());
-                var destCls =  classInfo.getClassNode(destRef.id());
+            // Just to verify they exist
+            var sourceCls = classInfo.getClassNode(sourceRef.id());
+            var destCls =  classInfo.getClassNode(destRef.id());
 
-                if (sourceCls == null || destCls == null || !isSubTypeOf(destRef, sourceRef)) {
-                    valid = false;
-                }
+            if (sourceCls == null || destCls == null || !isSubTypeOf(destRef, sourceRef)) {
+                valid = false;
             }
-
-        } catch (NoSuchElementException exc) {
-            valid = false; // expr not an int array
-            return;
         }
-
     }
 }
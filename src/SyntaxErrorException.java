@@ -0,0 +1,71 @@
+import java.util.List;
+
+/*
+ * Thrown by the parsers (and by the lexer through the parser's scan code) once parsing stops.
+ * Parser recovers from syntax errors to report all of them, FastParser stops at the first one.
+ * The message is always about the first error, the way the compiler has always reported it.
+ * */
+public class SyntaxErrorException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    public static class SyntaxError {
+        private final int line;
+        private final int column;
+
+        // Both 1 based, column is 0 when unknown
+        public SyntaxError(int line, int column) {
+            this.line = line;
+            this.column = column;
+        }
+
+        public int getLine() {
+            return line;
+        }
+
+        public int getColumn() {
+            return column;
+        }
+
+        @Override
+        public String toString() {
+            return column == 0 ? Integer.toString(line) : line + ":" + column;
+        }
+    }
+
+    private final List<SyntaxError> errors;
+
+    public SyntaxErrorException(int line) {
+        this(line, 0);
+    }
+
+    public SyntaxErrorException(int line, int column) {
+        this(List.of(new SyntaxError(line, column)));
+    }
+
+    // errors mustn't be empty
+    public SyntaxErrorException(List<SyntaxError> errors) {
+        super("Syntax error at line " + errors.get(0).getLine() + " of input.");
+        this.errors = List.copyOf(errors);
+    }
+
+    public int getLine() {
+        return errors.get(0).getLine();
+    }
+
+    // In the order they were found, the first one is the one in the message
+    public List<SyntaxError> getErrors() {
+        return errors;
+    }
+
+    // The message followed by the positions of all the errors, when there's more than one
+    public String describeAll() {
+        if (errors.size() == 1) {
+            return getMessage();
+        }
+        var description = new StringBuilder(getMessage()).append(" ").append(errors.size()).append(" syntax errors at");
+        for (var error : errors) {
+            description.append(' ').append(error);
+        }
+        return description.toString();
+    }
+}
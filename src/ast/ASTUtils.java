@@ -10,7 +10,7 @@ public class ASTUtils implements IASTUtils {
     public MethodDecl getMethodFromLineNumber(int lineNumber) {
         for (ClassDecl classDecl : program.classDecls()) {
             for (MethodDecl methodDecl: classDecl.methoddecls()) {
-                if (methodDecl.lineNumber == lineNumber) {
+                if (methodDecl.hasLineNumber() && methodDecl.lineNumber() == lineNumber) {
                     return methodDecl;
                 }
             }
@@ -21,7 +21,7 @@ public class ASTUtils implements IASTUtils {
     public ClassDecl getClassFromLineNumber(int lineNumber) {
         for (ClassDecl classDecl : program.classDecls()) {
             for (MethodDecl methodDecl: classDecl.methoddecls()) {
-                if (methodDecl.lineNumber == lineNumber) {
+                if (methodDecl.hasLineNumber() && methodDecl.lineNumber() == lineNumber) {
                     return classDecl;
                 }
             }
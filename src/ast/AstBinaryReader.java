@@ -0,0 +1,282 @@
+package ast;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * Decodes a Program from the .mjast format described in AstBinarySerializer.
+ * The file is memory mapped, and only the string table, the class index and the main class are decoded up front.
+ * The fields and methods of a class are decoded from the mapping the first time they're asked for,
+ * so a tool that only looks at the class hierarchy or at a few classes never decodes the rest.
+ * */
+public class AstBinaryReader {
+
+    private final ByteBuffer buffer;
+    private final String[] strings;
+
+    private AstBinaryReader(ByteBuffer buffer, String[] strings) {
+        this.buffer = buffer;
+        this.strings = strings;
+    }
+
+    public static Program read(Path path) throws IOException {
+        ByteBuffer buffer;
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return read(buffer);
+    }
+
+    public static Program read(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < AstBinarySerializer.HEADER_SIZE) {
+            throw new IOException("not a .mjast file");
+        }
+        byte[] magic = new byte[AstBinarySerializer.MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, AstBinarySerializer.MAGIC)) {
+            throw new IOException("not a .mjast file");
+        }
+        if (buffer.get(magic.length) != AstBinarySerializer.VERSION) {
+            throw new IOException("unsupported .mjast version " + buffer.get(magic.length));
+        }
+        int stringTableOffset = buffer.getInt(magic.length + 1);
+        int classIndexOffset = buffer.getInt(magic.length + 5);
+
+        try {
+            var stringTable = new Decoder(buffer, null, stringTableOffset);
+            var strings = new String[stringTable.readVarint()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = stringTable.readUtf8();
+            }
+            var reader = new AstBinaryReader(buffer, strings);
+
+            var mainClass = (MainClass) reader.decoder(AstBinarySerializer.HEADER_SIZE).readNode();
+            var classIndex = reader.decoder(classIndexOffset);
+            Integer programLineNumber = classIndex.readLineNumber();
+            int classCount = classIndex.readVarint();
+            List<ClassDecl> classDecls = new ArrayList<>(classCount);
+            for (int i = 0; i < classCount; i++) {
+                Integer lineNumber = classIndex.readLineNumber();
+                String name = classIndex.readString();
+                String superName = classIndex.readString();
+                int bodyOffset = classIndex.readVarint();
+                var classDecl = new ClassDecl(name, superName, reader, bodyOffset);
+                classDecl.setLineNumber(lineNumber);
+                classDecls.add(classDecl);
+            }
+
+            var program = new Program(mainClass, classDecls);
+            program.setLineNumber(programLineNumber);
+            return program;
+        } catch (IndexOutOfBoundsException | IllegalArgumentException | ClassCastException e) {
+            throw new IOException("corrupt .mjast file", e);
+        }
+    }
+
+    private Decoder decoder(int offset) {
+        return new Decoder(buffer, strings, offset);
+    }
+
+    // Called by ClassDecl the first time its fields or methods are needed
+    void readClassBody(int bodyOffset, List<VarDecl> fields, List<MethodDecl> methodDecls) {
+        var decoder = decoder(bodyOffset);
+        int fieldCount = decoder.readVarint();
+        for (int i = 0; i < fieldCount; i++) {
+            fields.add((VarDecl) decoder.readNode());
+        }
+        int methodCount = decoder.readVarint();
+        for (int i = 0; i < methodCount; i++) {
+            methodDecls.add((MethodDecl) decoder.readNode());
+        }
+    }
+
+    // Reads from its own position, so several classes can be decoded from the same mapping
+    private static class Decoder {
+        private final ByteBuffer buffer;
+        private final String[] strings;
+        private int position;
+
+        Decoder(ByteBuffer buffer, String[] strings, int position) {
+            this.buffer = buffer;
+            this.strings = strings;
+            this.position = position;
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get(position++);
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+                if (shift >= 28) {
+                    throw new IllegalArgumentException("varint too long");
+                }
+            }
+        }
+
+        int readInt() {
+            int zigzag = readVarint();
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        Integer readLineNumber() {
+            int code = readVarint();
+            return code == 0 ? null : code - 1;
+        }
+
+        String readUtf8() {
+            int length = readVarint();
+            byte[] bytes = new byte[length];
+            buffer.get(position, bytes);
+            position += length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        String readString() {
+            int id = readVarint();
+            return id == 0 ? null : strings[id - 1];
+        }
+
+        private <T extends AstNode> List<T> readList() {
+            int size = readVarint();
+            List<T> list = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                @SuppressWarnings("unchecked")
+                T node = (T) readNode();
+                list.add(node);
+            }
+            return list;
+        }
+
+        private <T extends AstNode> T withLineNumber(T node, Integer lineNumber) {
+            node.setLineNumber(lineNumber);
+            return node;
+        }
+
+        AstNode readNode() {
+            var tag = AstBinaryTag.of(readVarint());
+            if (tag == AstBinaryTag.NULL) {
+                return null;
+            }
+            Integer lineNumber = readLineNumber();
+
+            switch (tag) {
+                case MAIN_CLASS: {
+                    String name = readString();
+                    String argsName = readString();
+                    return withLineNumber(new MainClass(name, argsName, (Statement) readNode()), lineNumber);
+                }
+                case METHOD_DECL: {
+                    var returnType = (AstType) readNode();
+                    String name = readString();
+                    List<FormalArg> formals = readList();
+                    List<VarDecl> varDecls = readList();
+                    List<Statement> body = readList();
+                    var ret = (Expr) readNode();
+                    // The constructors of the nodes with a line number don't take a missing one
+                    return withLineNumber(new MethodDecl(returnType, name, formals, varDecls, body, ret, 0), lineNumber);
+                }
+                case FORMAL_ARG: {
+                    var type = (AstType) readNode();
+                    return withLineNumber(new FormalArg(type, readString(), 0), lineNumber);
+                }
+                case VAR_DECL: {
+                    var type = (AstType) readNode();
+                    return withLineNumber(new VarDecl(type, readString(), 0), lineNumber);
+                }
+
+                case BLOCK:
+                    return withLineNumber(new BlockStatement(readList()), lineNumber);
+                case IF: {
+                    var cond = (Expr) readNode();
+                    var thenCase = (Statement) readNode();
+                    var elseCase = (Statement) readNode();
+                    return withLineNumber(new IfStatement(cond, thenCase, elseCase), lineNumber);
+                }
+                case WHILE: {
+                    var cond = (Expr) readNode();
+                    return withLineNumber(new WhileStatement(cond, (Statement) readNode()), lineNumber);
+                }
+                case SYSOUT:
+                    return withLineNumber(new SysoutStatement((Expr) readNode()), lineNumber);
+                case ASSIGN: {
+                    String lv = readString();
+                    return withLineNumber(new AssignStatement(lv, (Expr) readNode()), lineNumber);
+                }
+                case ASSIGN_ARRAY: {
+                    String lv = readString();
+                    var index = (Expr) readNode();
+                    return withLineNumber(new AssignArrayStatement(lv, index, (Expr) readNode()), lineNumber);
+                }
+
+                case AND: {
+                    var e1 = (Expr) readNode();
+                    return withLineNumber(new AndExpr(e1, (Expr) readNode()), lineNumber);
+                }
+                case LT: {
+                    var e1 = (Expr) readNode();
+                    return withLineNumber(new LtExpr(e1, (Expr) readNode()), lineNumber);
+                }
+                case ADD: {
+                    var e1 = (Expr) readNode();
+                    return withLineNumber(new AddExpr(e1, (Expr) readNode()), lineNumber);
+                }
+                case SUBTRACT: {
+                    var e1 = (Expr) readNode();
+                    return withLineNumber(new SubtractExpr(e1, (Expr) readNode()), lineNumber);
+                }
+                case MULT: {
+                    var e1 = (Expr) readNode();
+                    return withLineNumber(new MultExpr(e1, (Expr) readNode()), lineNumber);
+                }
+                case ARRAY_ACCESS: {
+                    var arrayExpr = (Expr) readNode();
+                    return withLineNumber(new ArrayAccessExpr(arrayExpr, (Expr) readNode()), lineNumber);
+                }
+                case ARRAY_LENGTH:
+                    return withLineNumber(new ArrayLengthExpr((Expr) readNode()), lineNumber);
+                case CALL: {
+                    var ownerExpr = (Expr) readNode();
+                    String methodId = readString();
+                    return withLineNumber(new MethodCallExpr(ownerExpr, methodId, readList()), lineNumber);
+                }
+                case INT_LITERAL:
+                    return withLineNumber(new IntegerLiteralExpr(readInt()), lineNumber);
+                case TRUE:
+                    return withLineNumber(new TrueExpr(), lineNumber);
+                case FALSE:
+                    return withLineNumber(new FalseExpr(), lineNumber);
+                case IDENTIFIER:
+                    return withLineNumber(new IdentifierExpr(readString()), lineNumber);
+                case THIS:
+                    return withLineNumber(new ThisExpr(), lineNumber);
+                case NEW_INT_ARRAY:
+                    return withLineNumber(new NewIntArrayExpr((Expr) readNode()), lineNumber);
+                case NEW_OBJECT:
+                    return withLineNumber(new NewObjectExpr(readString()), lineNumber);
+                case NOT:
+                    return withLineNumber(new NotExpr((Expr) readNode()), lineNumber);
+
+                case INT:
+                    return withLineNumber(new IntAstType(), lineNumber);
+                case BOOL:
+                    return withLineNumber(new BoolAstType(), lineNumber);
+                case INT_ARRAY:
+                    return withLineNumber(new IntArrayAstType(), lineNumber);
+                case REF:
+                    return withLineNumber(new RefType(readString()), lineNumber);
+            }
+            throw new IllegalArgumentException("unexpected .mjast node tag " + tag);
+        }
+    }
+}
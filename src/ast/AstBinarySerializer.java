@@ -0,0 +1,42 @@
+package ast;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+/*
+ * Reads and writes ASTs in the binary .mjast format, a smaller and faster alternative to the XML.
+ *
+ * header    "MJAST", a version byte, and the int32 offsets of the string table and of the class index
+ * nodes     the main class, followed by the body (fields and methods) of every class
+ * strings   the number of strings, then each one as its UTF-8 length and bytes
+ * classes   the program's line number and the number of classes, then for every class its line number,
+ *           name, super name and the offset of its body
+ *
+ * All numbers but the header offsets are unsigned LEB128 varints. A node is its AstBinaryTag followed by its
+ * line number and then its children in the order of their XML elements. Line numbers are written as 0 when missing
+ * and n + 1 otherwise, strings as 0 for null and 1 + their index in the string table otherwise, lists as their size
+ * followed by their nodes, and integer literals zigzag encoded.
+ * The class index lets a reader build the class hierarchy and find a class's body without decoding any other class.
+ * */
+public class AstBinarySerializer {
+    public static final String EXTENSION = ".mjast";
+
+    static final byte[] MAGIC = "MJAST".getBytes(StandardCharsets.US_ASCII);
+    static final byte VERSION = 1;
+    static final int HEADER_SIZE = MAGIC.length + 1 + 4 + 4;
+
+    public static boolean isBinaryFile(String filename) {
+        return filename.endsWith(EXTENSION);
+    }
+
+    public void serialize(Program ast, String outfilename) throws IOException {
+        try (var out = new BufferedOutputStream(new FileOutputStream(outfilename))) {
+            AstBinaryWriter.write(ast, out);
+        }
+    }
+
+    // The classes' bodies are decoded lazily from a mapping of the file
+    public Program deserialize(File file) throws IOException {
+        return AstBinaryReader.read(file.toPath());
+    }
+}
@@ -0,0 +1,51 @@
+package ast;
+
+/*
+ * The tag every node starts with in the .mjast format, written as the varint of its ordinal.
+ * New tags must only be added at the end, since the ordinals are part of the format.
+ * */
+enum AstBinaryTag {
+    NULL,
+    MAIN_CLASS,
+    METHOD_DECL,
+    FORMAL_ARG,
+    VAR_DECL,
+
+    BLOCK,
+    IF,
+    WHILE,
+    SYSOUT,
+    ASSIGN,
+    ASSIGN_ARRAY,
+
+    AND,
+    LT,
+    ADD,
+    SUBTRACT,
+    MULT,
+    ARRAY_ACCESS,
+    ARRAY_LENGTH,
+    CALL,
+    INT_LITERAL,
+    TRUE,
+    FALSE,
+    IDENTIFIER,
+    THIS,
+    NEW_INT_ARRAY,
+    NEW_OBJECT,
+    NOT,
+
+    INT,
+    BOOL,
+    INT_ARRAY,
+    REF;
+
+    private static final AstBinaryTag[] VALUES = values();
+
+    static AstBinaryTag of(int ordinal) {
+        if (ordinal < 0 || ordinal >= VALUES.length) {
+            throw new IllegalArgumentException("unknown .mjast node tag " + ordinal);
+        }
+        return VALUES[ordinal];
+    }
+}
@@ -0,0 +1,352 @@
+package ast;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Encodes a Program in the .mjast format described in AstBinarySerializer.
+ * */
+public class AstBinaryWriter implements Visitor {
+
+    private static class ClassIndexEntry {
+        private final Integer lineNumber;
+        private final int name;
+        private final int superName;
+        private final int bodyOffset;
+
+        ClassIndexEntry(Integer lineNumber, int name, int superName, int bodyOffset) {
+            this.lineNumber = lineNumber;
+            this.name = name;
+            this.superName = superName;
+            this.bodyOffset = bodyOffset;
+        }
+    }
+
+    private final ByteArrayOutputStream nodes = new ByteArrayOutputStream(16 * 1024);
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final List<String> strings = new ArrayList<>();
+    private final List<ClassIndexEntry> classIndex = new ArrayList<>();
+    private Integer programLineNumber;
+
+    private AstBinaryWriter() {
+    }
+
+    public static void write(Program program, OutputStream out) throws IOException {
+        var writer = new AstBinaryWriter();
+        writer.visit(program);
+        writer.writeTo(out);
+    }
+
+    private void writeTo(OutputStream out) throws IOException {
+        var tables = new ByteArrayOutputStream(4 * 1024);
+        writeVarint(tables, strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeVarint(tables, bytes.length);
+            tables.write(bytes);
+        }
+        int classIndexOffset = AstBinarySerializer.HEADER_SIZE + nodes.size() + tables.size();
+        writeVarint(tables, lineNumberCode(programLineNumber));
+        writeVarint(tables, classIndex.size());
+        for (var entry : classIndex) {
+            writeVarint(tables, lineNumberCode(entry.lineNumber));
+            writeVarint(tables, entry.name);
+            writeVarint(tables, entry.superName);
+            writeVarint(tables, entry.bodyOffset);
+        }
+
+        var header = ByteBuffer.allocate(AstBinarySerializer.HEADER_SIZE);
+        header.put(AstBinarySerializer.MAGIC);
+        header.put(AstBinarySerializer.VERSION);
+        header.putInt(AstBinarySerializer.HEADER_SIZE + nodes.size());
+        header.putInt(classIndexOffset);
+        out.write(header.array());
+        nodes.writeTo(out);
+        tables.writeTo(out);
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, int value) {
+        while ((value & ~0x7f) != 0) {
+            out.write((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+
+    // 0 for a missing line number
+    private static int lineNumberCode(Integer lineNumber) {
+        return lineNumber == null ? 0 : lineNumber + 1;
+    }
+
+    private static int lineNumberCode(AstNode node) {
+        return node.hasLineNumber() ? node.lineNumber() + 1 : 0;
+    }
+
+    // 0 for null, otherwise 1 + the string's index in the string table
+    private int stringId(String string) {
+        if (string == null) {
+            return 0;
+        }
+        Integer id = stringIds.get(string);
+        if (id == null) {
+            strings.add(string);
+            id = strings.size();
+            stringIds.put(string, id);
+        }
+        return id;
+    }
+
+    private void writeString(String string) {
+        writeVarint(nodes, stringId(string));
+    }
+
+    private void writeInt(int value) {
+        // Zigzag, so small negative numbers stay short too
+        writeVarint(nodes, (value << 1) ^ (value >> 31));
+    }
+
+    private void writeTag(AstBinaryTag tag, AstNode node) {
+        writeVarint(nodes, tag.ordinal());
+        writeVarint(nodes, lineNumberCode(node));
+    }
+
+    private void writeNode(AstNode node) {
+        if (node == null) {
+            writeVarint(nodes, AstBinaryTag.NULL.ordinal());
+            return;
+        }
+        node.accept(this);
+    }
+
+    // A missing list (from an XML without its element) is read back as an empty one
+    private void writeList(List<? extends AstNode> list) {
+        if (list == null) {
+            writeVarint(nodes, 0);
+            return;
+        }
+        writeVarint(nodes, list.size());
+        for (var node : list) {
+            writeNode(node);
+        }
+    }
+
+    private void writeVariable(AstBinaryTag tag, VariableIntroduction variable) {
+        writeTag(tag, variable);
+        writeNode(variable.type());
+        writeString(variable.name());
+    }
+
+    private void visitBinaryExpr(AstBinaryTag tag, BinaryExpr e) {
+        writeTag(tag, e);
+        writeNode(e.e1());
+        writeNode(e.e2());
+    }
+
+    @Override
+    public void visit(Program program) {
+        programLineNumber = program.getLineNumber();
+        writeNode(program.mainClass());
+        for (ClassDecl classDecl : program.classDecls()) {
+            classDecl.accept(this);
+        }
+    }
+
+    // Only the body is written here, the rest goes to the class index
+    @Override
+    public void visit(ClassDecl classDecl) {
+        classIndex.add(new ClassIndexEntry(classDecl.getLineNumber(), stringId(classDecl.name()),
+                stringId(classDecl.superName()), AstBinarySerializer.HEADER_SIZE + nodes.size()));
+        writeList(classDecl.fields());
+        writeList(classDecl.methoddecls());
+    }
+
+    @Override
+    public void visit(MainClass mainClass) {
+        writeTag(AstBinaryTag.MAIN_CLASS, mainClass);
+        writeString(mainClass.name());
+        writeString(mainClass.argsName());
+        writeNode(mainClass.mainStatement());
+    }
+
+    @Override
+    public void visit(MethodDecl methodDecl) {
+        writeTag(AstBinaryTag.METHOD_DECL, methodDecl);
+        writeNode(methodDecl.returnType());
+        writeString(methodDecl.name());
+        writeList(methodDecl.formals());
+        writeList(methodDecl.vardecls());
+        writeList(methodDecl.body());
+        writeNode(methodDecl.ret());
+    }
+
+    @Override
+    public void visit(FormalArg formalArg) {
+        writeVariable(AstBinaryTag.FORMAL_ARG, formalArg);
+    }
+
+    @Override
+    public void visit(VarDecl varDecl) {
+        writeVariable(AstBinaryTag.VAR_DECL, varDecl);
+    }
+
+    @Override
+    public void visit(BlockStatement blockStatement) {
+        writeTag(AstBinaryTag.BLOCK, blockStatement);
+        writeList(blockStatement.statements());
+    }
+
+    @Override
+    public void visit(IfStatement ifStatement) {
+        writeTag(AstBinaryTag.IF, ifStatement);
+        writeNode(ifStatement.cond());
+        writeNode(ifStatement.thencase());
+        writeNode(ifStatement.elsecase());
+    }
+
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        writeTag(AstBinaryTag.WHILE, whileStatement);
+        writeNode(whileStatement.cond());
+        writeNode(whileStatement.body());
+    }
+
+    @Override
+    public void visit(SysoutStatement sysoutStatement) {
+        writeTag(AstBinaryTag.SYSOUT, sysoutStatement);
+        writeNode(sysoutStatement.arg());
+    }
+
+    @Override
+    public void visit(AssignStatement assignStatement) {
+        writeTag(AstBinaryTag.ASSIGN, assignStatement);
+        writeString(assignStatement.lv());
+        writeNode(assignStatement.rv());
+    }
+
+    @Override
+    public void visit(AssignArrayStatement assignArrayStatement) {
+        writeTag(AstBinaryTag.ASSIGN_ARRAY, assignArrayStatement);
+        writeString(assignArrayStatement.lv());
+        writeNode(assignArrayStatement.index());
+        writeNode(assignArrayStatement.rv());
+    }
+
+    @Override
+    public void visit(AndExpr e) {
+        visitBinaryExpr(AstBinaryTag.AND, e);
+    }
+
+    @Override
+    public void visit(LtExpr e) {
+        visitBinaryExpr(AstBinaryTag.LT, e);
+    }
+
+    @Override
+    public void visit(AddExpr e) {
+        visitBinaryExpr(AstBinaryTag.ADD, e);
+    }
+
+    @Override
+    public void visit(SubtractExpr e) {
+        visitBinaryExpr(AstBinaryTag.SUBTRACT, e);
+    }
+
+    @Override
+    public void visit(MultExpr e) {
+        visitBinaryExpr(AstBinaryTag.MULT, e);
+    }
+
+    @Override
+    public void visit(ArrayAccessExpr e) {
+        writeTag(AstBinaryTag.ARRAY_ACCESS, e);
+        writeNode(e.arrayExpr());
+        writeNode(e.indexExpr());
+    }
+
+    @Override
+    public void visit(ArrayLengthExpr e) {
+        writeTag(AstBinaryTag.ARRAY_LENGTH, e);
+        writeNode(e.arrayExpr());
+    }
+
+    @Override
+    public void visit(MethodCallExpr e) {
+        writeTag(AstBinaryTag.CALL, e);
+        writeNode(e.ownerExpr());
+        writeString(e.methodId());
+        writeList(e.actuals());
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpr e) {
+        writeTag(AstBinaryTag.INT_LITERAL, e);
+        writeInt(e.num());
+    }
+
+    @Override
+    public void visit(TrueExpr e) {
+        writeTag(AstBinaryTag.TRUE, e);
+    }
+
+    @Override
+    public void visit(FalseExpr e) {
+        writeTag(AstBinaryTag.FALSE, e);
+    }
+
+    @Override
+    public void visit(IdentifierExpr e) {
+        writeTag(AstBinaryTag.IDENTIFIER, e);
+        writeString(e.id());
+    }
+
+    @Override
+    public void visit(ThisExpr e) {
+        writeTag(AstBinaryTag.THIS, e);
+    }
+
+    @Override
+    public void visit(NewIntArrayExpr e) {
+        writeTag(AstBinaryTag.NEW_INT_ARRAY, e);
+        writeNode(e.lengthExpr());
+    }
+
+    @Override
+    public void visit(NewObjectExpr e) {
+        writeTag(AstBinaryTag.NEW_OBJECT, e);
+        writeString(e.classId());
+    }
+
+    @Override
+    public void visit(NotExpr e) {
+        writeTag(AstBinaryTag.NOT, e);
+        writeNode(e.e());
+    }
+
+    @Override
+    public void visit(IntAstType t) {
+        writeTag(AstBinaryTag.INT, t);
+    }
+
+    @Override
+    public void visit(BoolAstType t) {
+        writeTag(AstBinaryTag.BOOL, t);
+    }
+
+    @Override
+    public void visit(IntArrayAstType t) {
+        writeTag(AstBinaryTag.INT_ARRAY, t);
+    }
+
+    @Override
+    public void visit(RefType t) {
+        writeTag(AstBinaryTag.REF, t);
+        writeString(t.id());
+    }
+}
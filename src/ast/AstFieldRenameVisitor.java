@@ -1,14 +1,17 @@
 package ast;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
-public class AstFieldRenameVisitor implements Visitor {
+public class AstFieldRenameVisitor implements IRenameVisitor {
 
     private String originalName;
     private int originalLine;
     private String newName;
     private Boolean inChangeScope;
     private Set<String> classesWithChangedField;
+    private List<AstNode> renamedNodes = new ArrayList<>();
 
     public AstFieldRenameVisitor(String originalName, int originalLine, String newName) {
             this.originalLine = originalLine;
@@ -18,6 +21,11 @@ public class AstFieldRenameVisitor implements Visitor {
             this.classesWithChangedField = new HashSet<String>();
     }
 
+    @Override
+    public List<AstNode> renamedNodes() {
+        return this.renamedNodes;
+    }
+
     private void visitBinaryExpr(BinaryExpr e, String infixSymbol) {
         e.e1().accept(this);
         e.e2().accept(this);
@@ -43,7 +51,7 @@ public class AstFieldRenameVisitor implements Visitor {
 
 
         for (var fieldDecl : classDecl.fields()) {
-            if (fieldDecl.lineNumber == this.originalLine) {
+            if (fieldDecl.hasLineNumber() && fieldDecl.lineNumber() == this.originalLine) {
                 this.inChangeScope = true;
                 this.classesWithChangedField.add(classDecl.name());
             }
@@ -71,7 +79,7 @@ public class AstFieldRenameVisitor implements Visitor {
             if(this.inChangeScope && formal.name().equals(this.originalName)) {
                 this.inChangeScope = false;
             }
-            if(formal.lineNumber == this.originalLine) {
+            if(formal.hasLineNumber() && formal.lineNumber() == this.originalLine) {
                 this.inChangeScope = true;
             }
             formal.accept(this);
@@ -81,7 +89,7 @@ public class AstFieldRenameVisitor implements Visitor {
             if(this.inChangeScope && varDecl.name().equals(this.originalName)) {
                 this.inChangeScope = false;
             }
-            if(varDecl.lineNumber == this.originalLine) {
+            if(varDecl.hasLineNumber() && varDecl.lineNumber() == this.originalLine) {
                 this.inChangeScope = true;
             }
             varDecl.accept(this);
@@ -97,16 +105,20 @@ public class AstFieldRenameVisitor implements Visitor {
 
     @Override
     public void visit(FormalArg formalArg) {
-        if (this.inChangeScope && formalArg.name().equals(this.originalName))
+        if (this.inChangeScope && formalArg.name().equals(this.originalName)) {
             formalArg.setName(this.newName);
+            this.renamedNodes.add(formalArg);
+        }
 
         formalArg.type().accept(this);
     }
 
     @Override
     public void visit(VarDecl varDecl) {
-        if (this.inChangeScope && varDecl.name().equals(this.originalName))
+        if (this.inChangeScope && varDecl.name().equals(this.originalName)) {
             varDecl.setName(this.newName);
+            this.renamedNodes.add(varDecl);
+        }
         varDecl.type().accept(this);
     }
 
@@ -137,8 +149,10 @@ public class AstFieldRenameVisitor implements Visitor {
 
     @Override
     public void visit(AssignStatement assignStatement) {
-        if (this.inChangeScope && assignStatement.lv().equals(this.originalName))
+        if (this.inChangeScope && assignStatement.lv().equals(this.originalName)) {
             assignStatement.setLv(this.newName);
+            this.renamedNodes.add(assignStatement);
+        }
 
         assignStatement.rv().accept(this);
     }
@@ -211,8 +225,10 @@ public class AstFieldRenameVisitor implements Visitor {
 
     @Override
     public void visit(IdentifierExpr e) {
-        if (this.inChangeScope && e.id().equals(this.originalName))
+        if (this.inChangeScope && e.id().equals(this.originalName)) {
             e.setId(this.newName);
+            this.renamedNodes.add(e);
+        }
     }
 
     public void visit(ThisExpr e) {
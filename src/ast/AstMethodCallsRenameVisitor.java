@@ -10,7 +10,7 @@ import java.util.List;
 * 2. this.foo();
 * 3. B b; ....; b.foo();
 * */
-public class AstMethodCallsRenameVisitor implements Visitor {
+public class AstMethodCallsRenameVisitor implements IRenameVisitor {
 
     // Used for understanding if, for example, B is a subclass of A.
     private ClassHierarchyForest classHierarchy;
@@ -30,6 +30,7 @@ public class AstMethodCallsRenameVisitor implements Visitor {
     private ArrayList<String> methodVarFamily; // var in method scope, which their type in family
     private ArrayList<String> methodVarAll; // all var in method scope
     private ClassDecl currClassDecl; // current class decl, used to look for var decl
+    private List<AstNode> renamedNodes; // every method and call that got the new name
 
     public AstMethodCallsRenameVisitor(ClassHierarchyForest classHierarchy, ClassTree predecessor,
                                        String originalName, int originalLine, String newName) {
@@ -38,6 +39,7 @@ public class AstMethodCallsRenameVisitor implements Visitor {
         this.originalName = originalName;
         this.originalLine = originalLine;
         this.newName = newName;
+        this.renamedNodes = new ArrayList<>();
 
         this.isMethodCall = false;
         this.changeMethod = false;
@@ -55,6 +57,11 @@ public class AstMethodCallsRenameVisitor implements Visitor {
         this.currClassDecl = null;
     }
 
+    @Override
+    public List<AstNode> renamedNodes() {
+        return this.renamedNodes;
+    }
+
     // given fieldName and current classDecl, return AstType of this fieldName
     private AstType getFieldType(ClassDecl classDecl, String fieldName){
         ClassTree classTree = this.classHierarchy.findClassTree(classDecl);
@@ -129,6 +136,7 @@ public class AstMethodCallsRenameVisitor implements Visitor {
 
         if (this.isInFamily && methodDecl.name().equals(this.originalName)) {
             methodDecl.setName(this.newName);
+            this.renamedNodes.add(methodDecl);
         }
 
         methodDecl.returnType().accept(this);
@@ -259,8 +267,10 @@ public class AstMethodCallsRenameVisitor implements Visitor {
         if(e.methodId().equals(this.originalName)){
             this.isMethodCall = true;
             e.ownerExpr().accept(this); // visit ownerExpr only when originalName method is called
-            if(this.changeMethod)
+            if(this.changeMethod) {
                 e.setMethodId(this.newName);
+                this.renamedNodes.add(e);
+            }
         }
         this.isMethodCall = false;
         this.changeMethod = false;
@@ -3,16 +3,70 @@ package ast;
 import javax.xml.bind.annotation.XmlElement;
 
 public abstract class AstNode {
-    @XmlElement(required = false)
-    public Integer lineNumber;
+    private static final int NO_LINE_NUMBER = Integer.MIN_VALUE;
+    private static final int NO_ID = -1;
+
+    // Set by AstNodeNumberingVisitor before the program is analyzed
+    private int id = NO_ID;
+
+    // Most nodes only ever have a line number, the ones parsers locate override span() to keep all of it
+    private int lineNumber = NO_LINE_NUMBER;
 
     public AstNode() {
-        lineNumber = null;
     }
 
     public AstNode(int lineNumber) {
         this.lineNumber = lineNumber;
     }
 
+    // The node's index in its program, from 0, see AstNodeTable. -1 until the program is numbered
+    public int nodeId() {
+        return id;
+    }
+
+    void setNodeId(int id) {
+        this.id = id;
+    }
+
+    // The line number as it's marshaled, null means it won't be marshaled to the XML
+    @XmlElement(name = "lineNumber", required = false)
+    public Integer getLineNumber() {
+        return hasLineNumber() ? lineNumber() : null;
+    }
+
+    public void setLineNumber(Integer lineNumber) {
+        setSpan(lineNumber == null ? SourceSpan.NONE : SourceSpan.of(lineNumber));
+    }
+
+    public boolean hasLineNumber() {
+        return SourceSpan.hasLine(span());
+    }
+
+    // -1 when the node has no line number
+    public int lineNumber() {
+        long span = span();
+        return SourceSpan.hasLine(span) ? SourceSpan.line(span) : -1;
+    }
+
+    // -1 when unknown, e.g. for nodes read from XML
+    public int column() {
+        return SourceSpan.column(span());
+    }
+
+    // The char offset right after the node's last token, -1 when unknown
+    public int endOffset() {
+        return SourceSpan.endOffset(span());
+    }
+
+    // See SourceSpan, NONE when the node has no line number
+    public long span() {
+        return lineNumber == NO_LINE_NUMBER ? SourceSpan.NONE : SourceSpan.of(lineNumber);
+    }
+
+    // Only keeps the line number, unless the node overrides it
+    public void setSpan(long span) {
+        this.lineNumber = SourceSpan.hasLine(span) ? SourceSpan.line(span) : NO_LINE_NUMBER;
+    }
+
     abstract public void accept(Visitor v);
 }
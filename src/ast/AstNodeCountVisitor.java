@@ -0,0 +1,236 @@
+package ast;
+
+/*
+ * Counts the nodes of a subtree, calling count on each one in preorder.
+ * */
+public class AstNodeCountVisitor implements IVisitorWithField<Integer> {
+
+    private int count = 0;
+
+    protected void count(AstNode node) {
+        count++;
+    }
+
+    // ASTs read from invalid XML can miss nodes, which the semantic checks report later
+    private void visitChild(AstNode child) {
+        if (child != null) {
+            child.accept(this);
+        }
+    }
+
+    private void visitBinaryExpr(BinaryExpr e) {
+        count(e);
+        visitChild(e.e1());
+        visitChild(e.e2());
+    }
+
+    @Override
+    public void visit(Program program) {
+        count(program);
+        visitChild(program.mainClass());
+        for (ClassDecl classdecl : program.classDecls()) {
+            visitChild(classdecl);
+        }
+    }
+
+    @Override
+    public void visit(ClassDecl classDecl) {
+        count(classDecl);
+        for (var fieldDecl : classDecl.fields()) {
+            visitChild(fieldDecl);
+        }
+        for (var methodDecl : classDecl.methoddecls()) {
+            visitChild(methodDecl);
+        }
+    }
+
+    @Override
+    public void visit(MainClass mainClass) {
+        count(mainClass);
+        visitChild(mainClass.mainStatement());
+    }
+
+    @Override
+    public void visit(MethodDecl methodDecl) {
+        count(methodDecl);
+        visitChild(methodDecl.returnType());
+        for (var formal : methodDecl.formals()) {
+            visitChild(formal);
+        }
+        for (var varDecl : methodDecl.vardecls()) {
+            visitChild(varDecl);
+        }
+        for (var stmt : methodDecl.body()) {
+            visitChild(stmt);
+        }
+        visitChild(methodDecl.ret());
+    }
+
+    @Override
+    public void visit(FormalArg formalArg) {
+        count(formalArg);
+        visitChild(formalArg.type());
+    }
+
+    @Override
+    public void visit(VarDecl varDecl) {
+        count(varDecl);
+        visitChild(varDecl.type());
+    }
+
+    @Override
+    public void visit(BlockStatement blockStatement) {
+        count(blockStatement);
+        for (var s : blockStatement.statements()) {
+            visitChild(s);
+        }
+    }
+
+    @Override
+    public void visit(IfStatement ifStatement) {
+        count(ifStatement);
+        visitChild(ifStatement.cond());
+        visitChild(ifStatement.thencase());
+        visitChild(ifStatement.elsecase());
+    }
+
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        count(whileStatement);
+        visitChild(whileStatement.cond());
+        visitChild(whileStatement.body());
+    }
+
+    @Override
+    public void visit(SysoutStatement sysoutStatement) {
+        count(sysoutStatement);
+        visitChild(sysoutStatement.arg());
+    }
+
+    @Override
+    public void visit(AssignStatement assignStatement) {
+        count(assignStatement);
+        visitChild(assignStatement.rv());
+    }
+
+    @Override
+    public void visit(AssignArrayStatement assignArrayStatement) {
+        count(assignArrayStatement);
+        visitChild(assignArrayStatement.index());
+        visitChild(assignArrayStatement.rv());
+    }
+
+    @Override
+    public void visit(AndExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(LtExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(AddExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(SubtractExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(MultExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(ArrayAccessExpr e) {
+        count(e);
+        visitChild(e.arrayExpr());
+        visitChild(e.indexExpr());
+    }
+
+    @Override
+    public void visit(ArrayLengthExpr e) {
+        count(e);
+        visitChild(e.arrayExpr());
+    }
+
+    @Override
+    public void visit(MethodCallExpr e) {
+        count(e);
+        visitChild(e.ownerExpr());
+        for (Expr arg : e.actuals()) {
+            visitChild(arg);
+        }
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpr e) {
+        count(e);
+    }
+
+    @Override
+    public void visit(TrueExpr e) {
+        count(e);
+    }
+
+    @Override
+    public void visit(FalseExpr e) {
+        count(e);
+    }
+
+    @Override
+    public void visit(IdentifierExpr e) {
+        count(e);
+    }
+
+    @Override
+    public void visit(ThisExpr e) {
+        count(e);
+    }
+
+    @Override
+    public void visit(NewIntArrayExpr e) {
+        count(e);
+        visitChild(e.lengthExpr());
+    }
+
+    @Override
+    public void visit(NewObjectExpr e) {
+        count(e);
+    }
+
+    @Override
+    public void visit(NotExpr e) {
+        count(e);
+        visitChild(e.e());
+    }
+
+    @Override
+    public void visit(IntAstType t) {
+        count(t);
+    }
+
+    @Override
+    public void visit(BoolAstType t) {
+        count(t);
+    }
+
+    @Override
+    public void visit(IntArrayAstType t) {
+        count(t);
+    }
+
+    @Override
+    public void visit(RefType t) {
+        count(t);
+    }
+
+    @Override
+    public Integer getField() {
+        return count;
+    }
+}
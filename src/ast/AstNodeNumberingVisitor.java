@@ -0,0 +1,17 @@
+package ast;
+
+/*
+ * Numbers the nodes of a program from 0 in preorder, so the tables over its node ids are dense whichever parser
+ * or reader made the nodes and whatever other programs were read alongside it. Numbering the program again
+ * gives the same ids, unless it changed in between.
+ * */
+public class AstNodeNumberingVisitor extends AstNodeCountVisitor {
+
+    private int nextId = 0;
+
+    @Override
+    protected void count(AstNode node) {
+        node.setNodeId(nextId++);
+        super.count(node);
+    }
+}
@@ -0,0 +1,361 @@
+package ast;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Finds the path of the name element of every node a rename can change: variables, formals, assignments,
+ * identifiers, methods and calls.
+ * A path is the XPath of the name element in the marshalled XML, with the position of every list item among
+ * the items with the same element name, e.g. /program/classdecls/classdecl[2]/methoddecls/methoddecl[1]/name
+ * Each one comes with the line number of the closest node around it that has one, 0 if none does.
+ * */
+public class AstNodePathVisitor implements Visitor {
+
+    public static class NamedNode {
+        private final AstNode node;
+        private final String path;
+        private final int line;
+
+        NamedNode(AstNode node, String path, int line) {
+            this.node = node;
+            this.path = path;
+            this.line = line;
+        }
+
+        public AstNode node() {
+            return node;
+        }
+
+        public String path() {
+            return path;
+        }
+
+        public int line() {
+            return line;
+        }
+    }
+
+    // null to find every named node
+    private final Set<AstNode> targets;
+    private final List<NamedNode> namedNodes = new ArrayList<>();
+    private final StringBuilder path = new StringBuilder();
+    private final Deque<Integer> pathLengths = new ArrayDeque<>();
+    private final Deque<Integer> lines = new ArrayDeque<>();
+    private int line = 0;
+    // Counts the element names of the list whose item is visited next, null outside lists
+    private Map<String, Integer> siblings = null;
+
+    public AstNodePathVisitor() {
+        this.targets = null;
+    }
+
+    // Only finds the paths of targets, compared by identity
+    public AstNodePathVisitor(List<AstNode> targets) {
+        this.targets = Collections.newSetFromMap(new IdentityHashMap<>());
+        this.targets.addAll(targets);
+    }
+
+    public List<NamedNode> namedNodes() {
+        return namedNodes;
+    }
+
+    private void startElement(String name, AstNode node) {
+        pathLengths.push(path.length());
+        lines.push(line);
+        path.append('/').append(name);
+        if (siblings != null) {
+            path.append('[').append(siblings.merge(name, 1, Integer::sum)).append(']');
+            siblings = null;
+        }
+        if (node != null && node.hasLineNumber()) {
+            line = node.lineNumber();
+        }
+    }
+
+    private void endElement() {
+        path.setLength(pathLengths.pop());
+        line = lines.pop();
+    }
+
+    private void named(AstNode node, String nameElement) {
+        if (targets != null && !targets.contains(node)) {
+            return;
+        }
+        int length = path.length();
+        path.append('/').append(nameElement);
+        namedNodes.add(new NamedNode(node, path.toString(), line));
+        path.setLength(length);
+    }
+
+    private void wrapped(String name, AstNode node) {
+        startElement(name, null);
+        if (node != null) {
+            node.accept(this);
+        }
+        endElement();
+    }
+
+    private void list(String name, List<? extends AstNode> nodes) {
+        if (nodes == null) {
+            return;
+        }
+        startElement(name, null);
+        Map<String, Integer> counts = new HashMap<>();
+        for (var node : nodes) {
+            siblings = counts;
+            node.accept(this);
+        }
+        siblings = null;
+        endElement();
+    }
+
+    private void visitVariable(String name, VariableIntroduction variable) {
+        startElement(name, variable);
+        named(variable, "name");
+        wrapped("type", variable.type());
+        endElement();
+    }
+
+    private void visitBinaryExpr(String name, BinaryExpr e) {
+        startElement(name, e);
+        wrapped("e1", e.e1());
+        wrapped("e2", e.e2());
+        endElement();
+    }
+
+    private void visitLeaf(String name, AstNode node) {
+        startElement(name, node);
+        endElement();
+    }
+
+    @Override
+    public void visit(Program program) {
+        startElement("program", program);
+        program.mainClass().accept(this);
+        list("classdecls", program.classDecls());
+        endElement();
+    }
+
+    @Override
+    public void visit(ClassDecl classDecl) {
+        startElement("classdecl", classDecl);
+        if (classDecl.fields() != null) {
+            startElement("fields", null);
+            Map<String, Integer> counts = new HashMap<>();
+            for (var field : classDecl.fields()) {
+                siblings = counts;
+                visitVariable("field", field);
+            }
+            siblings = null;
+            endElement();
+        }
+        list("methoddecls", classDecl.methoddecls());
+        endElement();
+    }
+
+    @Override
+    public void visit(MainClass mainClass) {
+        startElement("mainclass", mainClass);
+        wrapped("mainStatement", mainClass.mainStatement());
+        endElement();
+    }
+
+    @Override
+    public void visit(MethodDecl methodDecl) {
+        startElement("methoddecl", methodDecl);
+        named(methodDecl, "name");
+        wrapped("returnType", methodDecl.returnType());
+        list("formals", methodDecl.formals());
+        list("vardecls", methodDecl.vardecls());
+        list("body", methodDecl.body());
+        wrapped("ret", methodDecl.ret());
+        endElement();
+    }
+
+    @Override
+    public void visit(FormalArg formalArg) {
+        visitVariable("formal", formalArg);
+    }
+
+    @Override
+    public void visit(VarDecl varDecl) {
+        visitVariable("vardecl", varDecl);
+    }
+
+    @Override
+    public void visit(BlockStatement blockStatement) {
+        startElement("block", blockStatement);
+        list("statements", blockStatement.statements());
+        endElement();
+    }
+
+    @Override
+    public void visit(IfStatement ifStatement) {
+        startElement("if", ifStatement);
+        wrapped("cond", ifStatement.cond());
+        wrapped("thencase", ifStatement.thencase());
+        wrapped("elsecase", ifStatement.elsecase());
+        endElement();
+    }
+
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        startElement("while", whileStatement);
+        wrapped("cond", whileStatement.cond());
+        wrapped("body", whileStatement.body());
+        endElement();
+    }
+
+    @Override
+    public void visit(SysoutStatement sysoutStatement) {
+        startElement("sysout", sysoutStatement);
+        wrapped("arg", sysoutStatement.arg());
+        endElement();
+    }
+
+    @Override
+    public void visit(AssignStatement assignStatement) {
+        startElement("assign", assignStatement);
+        named(assignStatement, "lv");
+        wrapped("rv", assignStatement.rv());
+        endElement();
+    }
+
+    @Override
+    public void visit(AssignArrayStatement assignArrayStatement) {
+        startElement("assign-array", assignArrayStatement);
+        named(assignArrayStatement, "lv");
+        wrapped("index", assignArrayStatement.index());
+        wrapped("rv", assignArrayStatement.rv());
+        endElement();
+    }
+
+    @Override
+    public void visit(AndExpr e) {
+        visitBinaryExpr("and", e);
+    }
+
+    @Override
+    public void visit(LtExpr e) {
+        visitBinaryExpr("lt", e);
+    }
+
+    @Override
+    public void visit(AddExpr e) {
+        visitBinaryExpr("add", e);
+    }
+
+    @Override
+    public void visit(SubtractExpr e) {
+        visitBinaryExpr("subtract", e);
+    }
+
+    @Override
+    public void visit(MultExpr e) {
+        visitBinaryExpr("mult", e);
+    }
+
+    @Override
+    public void visit(ArrayAccessExpr e) {
+        startElement("array-access", e);
+        wrapped("arrayExpr", e.arrayExpr());
+        wrapped("indexExpr", e.indexExpr());
+        endElement();
+    }
+
+    @Override
+    public void visit(ArrayLengthExpr e) {
+        startElement("array-length", e);
+        wrapped("arrayExpr", e.arrayExpr());
+        endElement();
+    }
+
+    @Override
+    public void visit(MethodCallExpr e) {
+        startElement("call", e);
+        wrapped("ownerExpr", e.ownerExpr());
+        named(e, "methodId");
+        startElement("actuals", null);
+        Map<String, Integer> counts = new HashMap<>();
+        for (var actual : e.actuals()) {
+            siblings = counts;
+            wrapped("actual", actual);
+        }
+        endElement();
+        endElement();
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpr e) {
+        visitLeaf("int-literal", e);
+    }
+
+    @Override
+    public void visit(TrueExpr e) {
+        visitLeaf("true", e);
+    }
+
+    @Override
+    public void visit(FalseExpr e) {
+        visitLeaf("false", e);
+    }
+
+    @Override
+    public void visit(IdentifierExpr e) {
+        startElement("ref-id", e);
+        named(e, "id");
+        endElement();
+    }
+
+    @Override
+    public void visit(ThisExpr e) {
+        visitLeaf("this", e);
+    }
+
+    @Override
+    public void visit(NewIntArrayExpr e) {
+        startElement("new-int-array", e);
+        wrapped("lengthExpr", e.lengthExpr());
+        endElement();
+    }
+
+    @Override
+    public void visit(NewObjectExpr e) {
+        visitLeaf("new-object", e);
+    }
+
+    @Override
+    public void visit(NotExpr e) {
+        startElement("not", e);
+        wrapped("e", e.e());
+        endElement();
+    }
+
+    @Override
+    public void visit(IntAstType t) {
+        visitLeaf("int", t);
+    }
+
+    @Override
+    public void visit(BoolAstType t) {
+        visitLeaf("bool", t);
+    }
+
+    @Override
+    public void visit(IntArrayAstType t) {
+        visitLeaf("int-array", t);
+    }
+
+    @Override
+    public void visit(RefType t) {
+        visitLeaf("ref", t);
+    }
+}
@@ -0,0 +1,47 @@
+package ast;
+
+import java.util.Arrays;
+
+/*
+ * A value per node, kept in an array indexed by the node ids instead of a map hashing the nodes.
+ * The ids of a program's nodes are numbered from 0 (see AstNodeNumberingVisitor), so a value costs a slot rather
+ * than a map entry. Only holds the nodes of one program. Not thread safe.
+ * */
+public class AstNodeTable<T> {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private Object[] values = new Object[0];
+    private int size = 0;
+
+    // null when nothing was put for node
+    @SuppressWarnings("unchecked")
+    public T get(AstNode node) {
+        int index = node.nodeId();
+        return index >= 0 && index < values.length ? (T) values[index] : null;
+    }
+
+    public void put(AstNode node, T value) {
+        int index = node.nodeId();
+        if (index < 0) {
+            throw new IllegalArgumentException("The node wasn't numbered, see AstNodeNumberingVisitor");
+        }
+        if (index >= values.length) {
+            values = Arrays.copyOf(values, Math.max(Math.max(values.length * 2, INITIAL_CAPACITY), index + 1));
+        }
+        if (values[index] == null && value != null) {
+            size++;
+        } else if (values[index] != null && value == null) {
+            size--;
+        }
+        values[index] = value;
+    }
+
+    public boolean containsKey(AstNode node) {
+        return get(node) != null;
+    }
+
+    // The number of nodes with a value
+    public int size() {
+        return size;
+    }
+}
@@ -1,10 +1,19 @@
 package ast;
 
 public class AstPrintVisitor implements Visitor {
-    private StringBuilder builder = new StringBuilder();
+    private IOutputSink builder;
 
     private int indent = 0;
 
+    public AstPrintVisitor() {
+        this(new StringOutputSink());
+    }
+
+    public AstPrintVisitor(IOutputSink sink) {
+        builder = sink;
+    }
+
+    // Only the output itself when printing into the default StringOutputSink
     public String getString() {
         return builder.toString();
     }
@@ -0,0 +1,121 @@
+package ast;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+/*
+ * The changes of a rename, as a small text file instead of the whole renamed AST.
+ * After a header line, every line is a renamed node: the path of its name element (see AstNodePathVisitor),
+ * the line number around it and the new name, separated by tabs.
+ * Applying the patch to the AST the rename ran on gives the same AST the rename produced.
+ * */
+public class AstRenamePatch {
+    public static final String EXTENSION = ".patch";
+    private static final String HEADER = "# mjavac rename patch";
+
+    private static class Change {
+        private final String path;
+        private final int line;
+        private final String newName;
+
+        Change(String path, int line, String newName) {
+            this.path = path;
+            this.line = line;
+            this.newName = newName;
+        }
+    }
+
+    private final List<Change> changes = new ArrayList<>();
+
+    private AstRenamePatch() {
+    }
+
+    public static boolean isPatchFile(String filename) {
+        return filename.endsWith(EXTENSION);
+    }
+
+    // renamedNodes must already have newName
+    public static AstRenamePatch of(Program program, List<AstNode> renamedNodes, String newName) {
+        var pathVisitor = new AstNodePathVisitor(renamedNodes);
+        pathVisitor.visit(program);
+        var patch = new AstRenamePatch();
+        for (var namedNode : pathVisitor.namedNodes()) {
+            patch.changes.add(new Change(namedNode.path(), namedNode.line(), newName));
+        }
+        return patch;
+    }
+
+    public static AstRenamePatch read(File file) throws IOException {
+        var patch = new AstRenamePatch();
+        try (var reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            if (!HEADER.equals(reader.readLine())) {
+                throw new IOException(file + " is not a rename patch");
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] parts = line.split("\t");
+                if (parts.length != 3) {
+                    throw new IOException("malformed rename patch line: " + line);
+                }
+                patch.changes.add(new Change(parts[0], Integer.parseInt(parts[1]), parts[2]));
+            }
+        }
+        return patch;
+    }
+
+    public void write(String outfilename) throws IOException {
+        try (var writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(outfilename), StandardCharsets.UTF_8))) {
+            writer.write(HEADER);
+            writer.write('\n');
+            for (var change : changes) {
+                writer.write(change.path);
+                writer.write('\t');
+                writer.write(Integer.toString(change.line));
+                writer.write('\t');
+                writer.write(change.newName);
+                writer.write('\n');
+            }
+        }
+    }
+
+    private static void rename(AstNode node, String newName) {
+        if (node instanceof VariableIntroduction) {
+            ((VariableIntroduction) node).setName(newName);
+        } else if (node instanceof MethodDecl) {
+            ((MethodDecl) node).setName(newName);
+        } else if (node instanceof AssignStatement) {
+            ((AssignStatement) node).setLv(newName);
+        } else if (node instanceof AssignArrayStatement) {
+            ((AssignArrayStatement) node).setLv(newName);
+        } else if (node instanceof IdentifierExpr) {
+            ((IdentifierExpr) node).setId(newName);
+        } else if (node instanceof MethodCallExpr) {
+            ((MethodCallExpr) node).setMethodId(newName);
+        }
+    }
+
+    // Fails without changing anything when a path isn't in program, or is at another line than in the patch
+    public void apply(Program program) {
+        var pathVisitor = new AstNodePathVisitor();
+        pathVisitor.visit(program);
+        var nodesByPath = new HashMap<String, AstNodePathVisitor.NamedNode>();
+        for (var namedNode : pathVisitor.namedNodes()) {
+            nodesByPath.put(namedNode.path(), namedNode);
+        }
+
+        List<AstNode> targets = new ArrayList<>();
+        for (var change : changes) {
+            var namedNode = nodesByPath.get(change.path);
+            if (namedNode == null || namedNode.line() != change.line) {
+                throw new IllegalArgumentException("the patch doesn't match the AST at " + change.path);
+            }
+            targets.add(namedNode.node());
+        }
+        for (int i = 0; i < changes.size(); i++) {
+            rename(targets.get(i), changes.get(i).newName);
+        }
+    }
+}
@@ -0,0 +1,528 @@
+package ast;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Reads the schema/ast.xsd XML of an AST with a StAX reader, building the nodes directly instead of going through JAXB.
+ * Like JAXB, the children of an element may come in any order and a missing element leaves its value null,
+ * but an element the schema doesn't have is an error rather than ignored.
+ * */
+public class AstStaxReader {
+
+    private interface ElementReader<T> {
+        T read() throws XMLStreamException;
+    }
+
+    private final XMLStreamReader reader;
+    // The names in the XML, shared like the lexer's
+    private final NameTable names = new NameTable();
+
+    private AstStaxReader(XMLStreamReader reader) {
+        this.reader = reader;
+    }
+
+    public static Program read(InputStream in) throws IOException, XMLStreamException {
+        var factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        var reader = factory.createXMLStreamReader(in);
+        try {
+            reader.nextTag();
+            if (!reader.getLocalName().equals("program")) {
+                throw unexpected(reader);
+            }
+            return new AstStaxReader(reader).readProgram();
+        } finally {
+            reader.close();
+        }
+    }
+
+    private static XMLStreamException unexpected(XMLStreamReader reader) {
+        return new XMLStreamException("unexpected element <" + reader.getLocalName() + ">", reader.getLocation());
+    }
+
+    // Moves to the next child of the current element, false once its end tag is reached
+    private boolean nextChild() throws XMLStreamException {
+        return reader.nextTag() == XMLStreamConstants.START_ELEMENT;
+    }
+
+    private String readText() throws XMLStreamException {
+        return names.intern(reader.getElementText());
+    }
+
+    private int readInt() throws XMLStreamException {
+        return Integer.parseInt(reader.getElementText().trim());
+    }
+
+    private <T> List<T> readList(String elementName, ElementReader<T> elementReader) throws XMLStreamException {
+        List<T> list = new ArrayList<>();
+        while (nextChild()) {
+            if (!reader.getLocalName().equals(elementName)) {
+                throw unexpected(reader);
+            }
+            list.add(elementReader.read());
+        }
+        return list;
+    }
+
+    private <T extends AstNode> T withLineNumber(T node, Integer lineNumber) {
+        node.setLineNumber(lineNumber);
+        return node;
+    }
+
+    private Program readProgram() throws XMLStreamException {
+        Integer lineNumber = null;
+        MainClass mainClass = null;
+        List<ClassDecl> classDecls = null;
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "lineNumber":
+                    lineNumber = readInt();
+                    break;
+                case "mainclass":
+                    mainClass = readMainClass();
+                    break;
+                case "classdecls":
+                    classDecls = readList("classdecl", this::readClassDecl);
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+        return withLineNumber(new Program(mainClass, classDecls), lineNumber);
+    }
+
+    private MainClass readMainClass() throws XMLStreamException {
+        Integer lineNumber = null;
+        String name = null;
+        String argsName = null;
+        Statement mainStatement = null;
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "lineNumber":
+                    lineNumber = readInt();
+                    break;
+                case "name":
+                    name = readText();
+                    break;
+                case "argsName":
+                    argsName = readText();
+                    break;
+                case "mainStatement":
+                    mainStatement = readWrappedStatement();
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+        return withLineNumber(new MainClass(name, argsName, mainStatement), lineNumber);
+    }
+
+    private ClassDecl readClassDecl() throws XMLStreamException {
+        Integer lineNumber = null;
+        String name = null;
+        String superName = null;
+        List<VarDecl> fields = null;
+        List<MethodDecl> methodDecls = null;
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "lineNumber":
+                    lineNumber = readInt();
+                    break;
+                case "name":
+                    name = readText();
+                    break;
+                case "superName":
+                    superName = readText();
+                    break;
+                case "fields":
+                    fields = readList("field", this::readVarDecl);
+                    break;
+                case "methoddecls":
+                    methodDecls = readList("methoddecl", this::readMethodDecl);
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+        return withLineNumber(new ClassDecl(name, superName, fields, methodDecls), lineNumber);
+    }
+
+    private MethodDecl readMethodDecl() throws XMLStreamException {
+        Integer lineNumber = null;
+        AstType returnType = null;
+        String name = null;
+        List<FormalArg> formals = null;
+        List<VarDecl> varDecls = null;
+        List<Statement> body = null;
+        Expr ret = null;
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "lineNumber":
+                    lineNumber = readInt();
+                    break;
+                case "returnType":
+                    returnType = readWrappedType();
+                    break;
+                case "name":
+                    name = readText();
+                    break;
+                case "formals":
+                    formals = readList("formal", this::readFormalArg);
+                    break;
+                case "vardecls":
+                    varDecls = readList("vardecl", this::readVarDecl);
+                    break;
+                case "body":
+                    body = readStatements();
+                    break;
+                case "ret":
+                    ret = readWrappedExpr();
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+        // The constructors of the nodes with a line number don't take a missing one
+        return withLineNumber(new MethodDecl(returnType, name, formals, varDecls, body, ret, 0), lineNumber);
+    }
+
+    private FormalArg readFormalArg() throws XMLStreamException {
+        var variable = readVarDecl();
+        return withLineNumber(new FormalArg(variable.type(), variable.name(), 0), variable.getLineNumber());
+    }
+
+    // Fields, local variables and formals share their elements
+    private VarDecl readVarDecl() throws XMLStreamException {
+        Integer lineNumber = null;
+        AstType type = null;
+        String name = null;
+        while (nextChild()) {
+            switch (reader.getLocalName()) {
+                case "lineNumber":
+                    lineNumber = readInt();
+                    break;
+                case "type":
+                    type = readWrappedType();
+                    break;
+                case "name":
+                    name = readText();
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+        return withLineNumber(new VarDecl(type, name, 0), lineNumber);
+    }
+
+    // The single optional child of a wrapper element, given the reader of the element it's on
+    private <T> T readWrapped(ElementReader<T> elementReader) throws XMLStreamException {
+        T value = null;
+        while (nextChild()) {
+            if (value != null) {
+                throw unexpected(reader);
+            }
+            value = elementReader.read();
+        }
+        return value;
+    }
+
+    private Statement readWrappedStatement() throws XMLStreamException {
+        return readWrapped(this::readStatement);
+    }
+
+    private Expr readWrappedExpr() throws XMLStreamException {
+        return readWrapped(this::readExpr);
+    }
+
+    private AstType readWrappedType() throws XMLStreamException {
+        return readWrapped(this::readType);
+    }
+
+    private List<Statement> readStatements() throws XMLStreamException {
+        List<Statement> statements = new ArrayList<>();
+        while (nextChild()) {
+            statements.add(readStatement());
+        }
+        return statements;
+    }
+
+    private Statement readStatement() throws XMLStreamException {
+        String elementName = reader.getLocalName();
+        Integer lineNumber = null;
+        String lv = null;
+        Expr cond = null;
+        Expr index = null;
+        Expr rv = null;
+        Expr arg = null;
+        Statement thenCase = null;
+        Statement elseCase = null;
+        Statement body = null;
+        List<Statement> statements = null;
+        while (nextChild()) {
+            switch (elementName + "/" + reader.getLocalName()) {
+                case "block/lineNumber":
+                case "if/lineNumber":
+                case "while/lineNumber":
+                case "sysout/lineNumber":
+                case "assign/lineNumber":
+                case "assign-array/lineNumber":
+                    lineNumber = readInt();
+                    break;
+                case "block/statements":
+                    statements = readStatements();
+                    break;
+                case "if/cond":
+                case "while/cond":
+                    cond = readWrappedExpr();
+                    break;
+                case "if/thencase":
+                    thenCase = readWrappedStatement();
+                    break;
+                case "if/elsecase":
+                    elseCase = readWrappedStatement();
+                    break;
+                case "while/body":
+                    body = readWrappedStatement();
+                    break;
+                case "sysout/arg":
+                    arg = readWrappedExpr();
+                    break;
+                case "assign/lv":
+                case "assign-array/lv":
+                    lv = readText();
+                    break;
+                case "assign-array/index":
+                    index = readWrappedExpr();
+                    break;
+                case "assign/rv":
+                case "assign-array/rv":
+                    rv = readWrappedExpr();
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+
+        Statement statement;
+        switch (elementName) {
+            case "block":
+                statement = new BlockStatement(statements);
+                break;
+            case "if":
+                statement = new IfStatement(cond, thenCase, elseCase);
+                break;
+            case "while":
+                statement = new WhileStatement(cond, body);
+                break;
+            case "sysout":
+                statement = new SysoutStatement(arg);
+                break;
+            case "assign":
+                statement = new AssignStatement(lv, rv);
+                break;
+            case "assign-array":
+                statement = new AssignArrayStatement(lv, index, rv);
+                break;
+            default:
+                throw unexpected(reader);
+        }
+        return withLineNumber(statement, lineNumber);
+    }
+
+    private Expr readExpr() throws XMLStreamException {
+        String elementName = reader.getLocalName();
+        switch (elementName) {
+            case "and":
+            case "lt":
+            case "add":
+            case "subtract":
+            case "mult":
+            case "array-access":
+            case "array-length":
+            case "call":
+            case "int-literal":
+            case "true":
+            case "false":
+            case "ref-id":
+            case "this":
+            case "new-int-array":
+            case "new-object":
+            case "not":
+                break;
+            default:
+                throw unexpected(reader);
+        }
+
+        Integer lineNumber = null;
+        Expr e1 = null;
+        Expr e2 = null;
+        Expr arrayExpr = null;
+        Expr indexExpr = null;
+        Expr ownerExpr = null;
+        String methodId = null;
+        // MethodCallExpr can't be built without a list
+        List<Expr> actuals = new ArrayList<>();
+        int num = 0;
+        String id = null;
+        Expr lengthExpr = null;
+        String classId = null;
+        Expr e = null;
+        while (nextChild()) {
+            String childName = reader.getLocalName();
+            if (childName.equals("lineNumber")) {
+                lineNumber = readInt();
+                continue;
+            }
+            switch (elementName + "/" + childName) {
+                case "and/e1":
+                case "lt/e1":
+                case "add/e1":
+                case "subtract/e1":
+                case "mult/e1":
+                    e1 = readWrappedExpr();
+                    break;
+                case "and/e2":
+                case "lt/e2":
+                case "add/e2":
+                case "subtract/e2":
+                case "mult/e2":
+                    e2 = readWrappedExpr();
+                    break;
+                case "array-access/arrayExpr":
+                case "array-length/arrayExpr":
+                    arrayExpr = readWrappedExpr();
+                    break;
+                case "array-access/indexExpr":
+                    indexExpr = readWrappedExpr();
+                    break;
+                case "call/ownerExpr":
+                    ownerExpr = readWrappedExpr();
+                    break;
+                case "call/methodId":
+                    methodId = readText();
+                    break;
+                case "call/actuals":
+                    actuals = readList("actual", this::readWrappedExpr);
+                    break;
+                case "int-literal/num":
+                    num = readInt();
+                    break;
+                case "ref-id/id":
+                    id = readText();
+                    break;
+                case "new-int-array/lengthExpr":
+                    lengthExpr = readWrappedExpr();
+                    break;
+                case "new-object/classId":
+                    classId = readText();
+                    break;
+                case "not/e":
+                    e = readWrappedExpr();
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+
+        Expr expr;
+        switch (elementName) {
+            case "and":
+                expr = new AndExpr(e1, e2);
+                break;
+            case "lt":
+                expr = new LtExpr(e1, e2);
+                break;
+            case "add":
+                expr = new AddExpr(e1, e2);
+                break;
+            case "subtract":
+                expr = new SubtractExpr(e1, e2);
+                break;
+            case "mult":
+                expr = new MultExpr(e1, e2);
+                break;
+            case "array-access":
+                expr = new ArrayAccessExpr(arrayExpr, indexExpr);
+                break;
+            case "array-length":
+                expr = new ArrayLengthExpr(arrayExpr);
+                break;
+            case "call":
+                expr = new MethodCallExpr(ownerExpr, methodId, actuals);
+                break;
+            case "int-literal":
+                expr = new IntegerLiteralExpr(num);
+                break;
+            case "true":
+                expr = new TrueExpr();
+                break;
+            case "false":
+                expr = new FalseExpr();
+                break;
+            case "ref-id":
+                expr = new IdentifierExpr(id);
+                break;
+            case "this":
+                expr = new ThisExpr();
+                break;
+            case "new-int-array":
+                expr = new NewIntArrayExpr(lengthExpr);
+                break;
+            case "new-object":
+                expr = new NewObjectExpr(classId);
+                break;
+            default:
+                expr = new NotExpr(e);
+                break;
+        }
+        return withLineNumber(expr, lineNumber);
+    }
+
+    private AstType readType() throws XMLStreamException {
+        String elementName = reader.getLocalName();
+        Integer lineNumber = null;
+        String id = null;
+        while (nextChild()) {
+            switch (elementName + "/" + reader.getLocalName()) {
+                case "int/lineNumber":
+                case "bool/lineNumber":
+                case "int-array/lineNumber":
+                case "ref/lineNumber":
+                    lineNumber = readInt();
+                    break;
+                case "ref/id":
+                    id = readText();
+                    break;
+                default:
+                    throw unexpected(reader);
+            }
+        }
+
+        AstType type;
+        switch (elementName) {
+            case "int":
+                type = new IntAstType();
+                break;
+            case "bool":
+                type = new BoolAstType();
+                break;
+            case "int-array":
+                type = new IntArrayAstType();
+                break;
+            case "ref":
+                type = new RefType(id);
+                break;
+            default:
+                throw unexpected(reader);
+        }
+        return withLineNumber(type, lineNumber);
+    }
+}
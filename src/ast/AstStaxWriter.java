@@ -0,0 +1,389 @@
+package ast;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/*
+ * Writes the schema/ast.xsd XML of an AST with a StAX writer, without going through JAXB.
+ * The output is byte for byte what the formatted JAXB marshaller writes, including its indentation,
+ * which restarts from the first column every 8 levels.
+ * */
+public class AstStaxWriter implements Visitor {
+    private static final String HEADER = "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>";
+    private static final char[] INDENT = "\n                                ".toCharArray();
+    private static final int INDENT_LEVELS = 8;
+    private static final int INDENT_WIDTH = 4;
+
+    // Carries a write error out of the visit methods, which can't throw checked exceptions
+    private static class WriteException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        WriteException(XMLStreamException cause) {
+            super(cause);
+        }
+    }
+
+    private final XMLStreamWriter writer;
+    private int depth = 0;
+    private String pendingStart = null;
+
+    private AstStaxWriter(XMLStreamWriter writer) {
+        this.writer = writer;
+    }
+
+    public static void write(AstNode ast, OutputStream out) throws IOException, XMLStreamException {
+        out.write(HEADER.getBytes(StandardCharsets.UTF_8));
+        var writer = XMLOutputFactory.newFactory().createXMLStreamWriter(out, "UTF-8");
+        try {
+            ast.accept(new AstStaxWriter(writer));
+            writer.writeCharacters("\n");
+            writer.flush();
+        } catch (WriteException e) {
+            throw (XMLStreamException) e.getCause();
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void indent() throws XMLStreamException {
+        writer.writeCharacters(INDENT, 0, 1 + (depth % INDENT_LEVELS) * INDENT_WIDTH);
+    }
+
+    // An element is only started once it has a child, so elements that end up without any are written as empty
+    private void start(String name) {
+        writePendingStart();
+        pendingStart = name;
+        depth++;
+    }
+
+    private void writePendingStart() {
+        if (pendingStart == null) {
+            return;
+        }
+        try {
+            depth--;
+            indent();
+            writer.writeStartElement(pendingStart);
+            depth++;
+            pendingStart = null;
+        } catch (XMLStreamException e) {
+            throw new WriteException(e);
+        }
+    }
+
+    private void end() {
+        try {
+            depth--;
+            indent();
+            if (pendingStart != null) {
+                writer.writeEmptyElement(pendingStart);
+                pendingStart = null;
+            } else {
+                writer.writeEndElement();
+            }
+        } catch (XMLStreamException e) {
+            throw new WriteException(e);
+        }
+    }
+
+    // null values are left out, like JAXB does
+    private void text(String name, Object value) {
+        if (value == null) {
+            return;
+        }
+        writePendingStart();
+        try {
+            indent();
+            writer.writeStartElement(name);
+            writer.writeCharacters(value.toString());
+            writer.writeEndElement();
+        } catch (XMLStreamException e) {
+            throw new WriteException(e);
+        }
+    }
+
+    // The element of a node, which starts with the line number the node inherits from AstNode
+    private void startNode(String name, AstNode node) {
+        start(name);
+        text("lineNumber", node.getLineNumber());
+    }
+
+    // An ExprWrapper, StatementWrapper or AstTypeWrapper field
+    private void wrapped(String name, AstNode node) {
+        start(name);
+        if (node != null) {
+            node.accept(this);
+        }
+        end();
+    }
+
+    private void list(String name, List<? extends AstNode> nodes) {
+        if (nodes == null) {
+            return;
+        }
+        start(name);
+        for (var node : nodes) {
+            node.accept(this);
+        }
+        end();
+    }
+
+    // Fields and local variables are both VarDecls, so the element name comes from the list they're in
+    private void variables(String name, String elementName, List<? extends VariableIntroduction> variables) {
+        if (variables == null) {
+            return;
+        }
+        start(name);
+        for (var variable : variables) {
+            variable(elementName, variable);
+        }
+        end();
+    }
+
+    private void variable(String name, VariableIntroduction variable) {
+        startNode(name, variable);
+        wrapped("type", variable.type());
+        text("name", variable.name());
+        end();
+    }
+
+    private void visitBinaryExpr(String name, BinaryExpr e) {
+        startNode(name, e);
+        wrapped("e1", e.e1());
+        wrapped("e2", e.e2());
+        end();
+    }
+
+    @Override
+    public void visit(Program program) {
+        startNode("program", program);
+        program.mainClass().accept(this);
+        list("classdecls", program.classDecls());
+        end();
+    }
+
+    @Override
+    public void visit(ClassDecl classDecl) {
+        startNode("classdecl", classDecl);
+        text("name", classDecl.name());
+        text("superName", classDecl.superName());
+        variables("fields", "field", classDecl.fields());
+        list("methoddecls", classDecl.methoddecls());
+        end();
+    }
+
+    @Override
+    public void visit(MainClass mainClass) {
+        startNode("mainclass", mainClass);
+        text("name", mainClass.name());
+        text("argsName", mainClass.argsName());
+        wrapped("mainStatement", mainClass.mainStatement());
+        end();
+    }
+
+    @Override
+    public void visit(MethodDecl methodDecl) {
+        startNode("methoddecl", methodDecl);
+        wrapped("returnType", methodDecl.returnType());
+        text("name", methodDecl.name());
+        variables("formals", "formal", methodDecl.formals());
+        variables("vardecls", "vardecl", methodDecl.vardecls());
+        list("body", methodDecl.body());
+        wrapped("ret", methodDecl.ret());
+        end();
+    }
+
+    @Override
+    public void visit(FormalArg formalArg) {
+        variable("formal", formalArg);
+    }
+
+    @Override
+    public void visit(VarDecl varDecl) {
+        variable("vardecl", varDecl);
+    }
+
+    @Override
+    public void visit(BlockStatement blockStatement) {
+        startNode("block", blockStatement);
+        list("statements", blockStatement.statements());
+        end();
+    }
+
+    @Override
+    public void visit(IfStatement ifStatement) {
+        startNode("if", ifStatement);
+        wrapped("cond", ifStatement.cond());
+        wrapped("thencase", ifStatement.thencase());
+        wrapped("elsecase", ifStatement.elsecase());
+        end();
+    }
+
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        startNode("while", whileStatement);
+        wrapped("cond", whileStatement.cond());
+        wrapped("body", whileStatement.body());
+        end();
+    }
+
+    @Override
+    public void visit(SysoutStatement sysoutStatement) {
+        startNode("sysout", sysoutStatement);
+        wrapped("arg", sysoutStatement.arg());
+        end();
+    }
+
+    @Override
+    public void visit(AssignStatement assignStatement) {
+        startNode("assign", assignStatement);
+        text("lv", assignStatement.lv());
+        wrapped("rv", assignStatement.rv());
+        end();
+    }
+
+    @Override
+    public void visit(AssignArrayStatement assignArrayStatement) {
+        startNode("assign-array", assignArrayStatement);
+        text("lv", assignArrayStatement.lv());
+        wrapped("index", assignArrayStatement.index());
+        wrapped("rv", assignArrayStatement.rv());
+        end();
+    }
+
+    @Override
+    public void visit(AndExpr e) {
+        visitBinaryExpr("and", e);
+    }
+
+    @Override
+    public void visit(LtExpr e) {
+        visitBinaryExpr("lt", e);
+    }
+
+    @Override
+    public void visit(AddExpr e) {
+        visitBinaryExpr("add", e);
+    }
+
+    @Override
+    public void visit(SubtractExpr e) {
+        visitBinaryExpr("subtract", e);
+    }
+
+    @Override
+    public void visit(MultExpr e) {
+        visitBinaryExpr("mult", e);
+    }
+
+    @Override
+    public void visit(ArrayAccessExpr e) {
+        startNode("array-access", e);
+        wrapped("arrayExpr", e.arrayExpr());
+        wrapped("indexExpr", e.indexExpr());
+        end();
+    }
+
+    @Override
+    public void visit(ArrayLengthExpr e) {
+        startNode("array-length", e);
+        wrapped("arrayExpr", e.arrayExpr());
+        end();
+    }
+
+    @Override
+    public void visit(MethodCallExpr e) {
+        startNode("call", e);
+        wrapped("ownerExpr", e.ownerExpr());
+        text("methodId", e.methodId());
+        start("actuals");
+        for (var actual : e.actuals()) {
+            wrapped("actual", actual);
+        }
+        end();
+        end();
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpr e) {
+        startNode("int-literal", e);
+        text("num", e.num());
+        end();
+    }
+
+    @Override
+    public void visit(TrueExpr e) {
+        startNode("true", e);
+        end();
+    }
+
+    @Override
+    public void visit(FalseExpr e) {
+        startNode("false", e);
+        end();
+    }
+
+    @Override
+    public void visit(IdentifierExpr e) {
+        startNode("ref-id", e);
+        text("id", e.id());
+        end();
+    }
+
+    @Override
+    public void visit(ThisExpr e) {
+        startNode("this", e);
+        end();
+    }
+
+    @Override
+    public void visit(NewIntArrayExpr e) {
+        startNode("new-int-array", e);
+        wrapped("lengthExpr", e.lengthExpr());
+        end();
+    }
+
+    @Override
+    public void visit(NewObjectExpr e) {
+        startNode("new-object", e);
+        text("classId", e.classId());
+        end();
+    }
+
+    @Override
+    public void visit(NotExpr e) {
+        startNode("not", e);
+        wrapped("e", e.e());
+        end();
+    }
+
+    @Override
+    public void visit(IntAstType t) {
+        startNode("int", t);
+        end();
+    }
+
+    @Override
+    public void visit(BoolAstType t) {
+        startNode("bool", t);
+        end();
+    }
+
+    @Override
+    public void visit(IntArrayAstType t) {
+        startNode("int-array", t);
+        end();
+    }
+
+    @Override
+    public void visit(RefType t) {
+        startNode("ref", t);
+        text("id", t.id());
+        end();
+    }
+}
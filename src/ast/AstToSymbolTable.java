@@ -5,10 +5,13 @@ import java.util.Map;
 
 public class AstToSymbolTable implements IAstToSymbolTable{
 
+    // Only the nodes that open a scope are mapped, a few per class, so a map is smaller than a table over all the ids
     private Map<AstNode,SymbolTable> _mapping;
+    private AstNodeTable<Binding> _bindings;
 
     public AstToSymbolTable() {
         _mapping = new HashMap<>();
+        _bindings = new AstNodeTable<>();
     }
 
     @Override
@@ -16,7 +19,16 @@ public class AstToSymbolTable implements IAstToSymbolTable{
         return _mapping.get(node);
     }
 
+    @Override
+    public Binding getBinding(AstNode node) {
+        return _bindings.get(node);
+    }
+
     public void addMapping(AstNode node, SymbolTable symbolTable) {
         _mapping.put(node,symbolTable);
     }
+
+    public void addBinding(AstNode node, Binding binding) {
+        _bindings.put(node, binding);
+    }
 }
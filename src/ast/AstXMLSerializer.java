@@ -1,22 +1,67 @@
 package ast;
 
 import javax.xml.bind.*;
+import javax.xml.stream.XMLStreamException;
 import java.io.*;
 
+/*
+ * Reads and writes the schema/ast.xsd XML of an AST.
+ * By default it's done with the hand written StAX AstStaxReader and AstStaxWriter, which skip the JAXB context
+ * (the slowest part of starting an unmarshal). JAXB is still used when asked for, and when the StAX reader
+ * rejects a file, since JAXB is more lenient about elements it doesn't know.
+ * Files ending with .gz are written gzip compressed, and compressed files are read whatever their name.
+ * */
 public class AstXMLSerializer {
+    public enum Backend {
+        STAX,
+        JAXB
+    }
+
+    // Building the context reflects over the whole AST, so it's done once per JVM.
+    // JAXBContext is thread safe, unlike the marshallers it creates.
+    private static JAXBContext context;
+
+    private final Backend backend;
+
+    public AstXMLSerializer() {
+        this(Backend.STAX);
+    }
+
+    public AstXMLSerializer(Backend backend) {
+        this.backend = backend;
+    }
+
+    private static synchronized JAXBContext getContext() throws JAXBException {
+        if (context == null) {
+            context = JAXBContext.newInstance(Program.class);
+        }
+        return context;
+    }
+
     public void serialize(AstNode ast, String outfilename) throws IOException {
+        try (var out = CompressedFiles.openOutput(outfilename)) {
+            serialize(ast, out);
+        }
+    }
+
+    // Leaves out open
+    public void serialize(AstNode ast, OutputStream out) throws IOException {
+        if (backend == Backend.STAX) {
+            try {
+                AstStaxWriter.write(ast, out);
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+            return;
+        }
+
         try {
-            JAXBContext jc = JAXBContext.newInstance(Program.class);
+            JAXBContext jc = getContext();
 
 
             Marshaller marshaller = jc.createMarshaller();
             marshaller.setProperty(Marshaller.JAXB_FORMATTED_OUTPUT, true);
-            var outWriter = new FileOutputStream(new File(outfilename));
-            try {
-                marshaller.marshal(ast, outWriter);
-            } finally {
-                outWriter.close();
-            }
+            marshaller.marshal(ast, out);
         } catch (PropertyException e) {
             e.printStackTrace();
             throw new RuntimeException();
@@ -26,12 +71,38 @@ public class AstXMLSerializer {
         }
     }
 
-    public Program deserialize(File file) {
+    public Program deserialize(File file) throws IOException {
+        if (backend == Backend.STAX) {
+            try (var in = CompressedFiles.openInput(file)) {
+                return AstStaxReader.read(in);
+            } catch (IOException | XMLStreamException e) {
+                // Falls back to JAXB, which either reads the file or reports what's wrong with it
+            }
+        }
+
+        try (var in = CompressedFiles.openInput(file)) {
+            return unmarshal(in);
+        }
+    }
+
+    // Unlike deserialize(File) the StAX backend can't fall back to JAXB, since in can only be read once
+    public Program deserialize(InputStream in) throws IOException {
+        if (backend == Backend.STAX) {
+            try {
+                return AstStaxReader.read(in);
+            } catch (XMLStreamException e) {
+                throw new IOException(e);
+            }
+        }
+        return unmarshal(in);
+    }
+
+    private static Program unmarshal(InputStream in) {
         try {
-            JAXBContext jc = JAXBContext.newInstance(Program.class);
+            JAXBContext jc = getContext();
 
             Unmarshaller unmarshaller = jc.createUnmarshaller();
-            return (Program) unmarshaller.unmarshal(file);
+            return (Program) unmarshaller.unmarshal(in);
         } catch (PropertyException e) {
             e.printStackTrace();
             throw new RuntimeException();
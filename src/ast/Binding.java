@@ -0,0 +1,52 @@
+package ast;
+
+/*
+ * The declaration a name in the AST refers to. NameResolutionVisitor finds it once for every identifier, assigned
+ * variable, new object and reference type, so later passes read it instead of looking the name up again.
+ * */
+public final class Binding {
+
+    public enum Kind {
+        LOCAL,
+        FORMAL,
+        FIELD,
+        CLASS
+    }
+
+    private final Kind kind;
+    private final SymbolTableItem declaration;
+    private final String ownerClass;
+    private final int slot;
+
+    public Binding(Kind kind, SymbolTableItem declaration, String ownerClass, int slot) {
+        this.kind = kind;
+        this.declaration = declaration;
+        this.ownerClass = ownerClass;
+        this.slot = slot;
+    }
+
+    public Kind kind() {
+        return kind;
+    }
+
+    // The symbol table item of the variable or of the class
+    public SymbolTableItem declaration() {
+        return declaration;
+    }
+
+    // The variable's type, null for a class
+    public AstType type() {
+        return declaration.getType();
+    }
+
+    // The class that declares the field, method or class itself
+    public String ownerClass() {
+        return ownerClass;
+    }
+
+    // The index of a local or formal in its method, the offset of a field in the objects of the class using it,
+    // -1 for a class
+    public int slot() {
+        return slot;
+    }
+}
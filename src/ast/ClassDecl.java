@@ -1,6 +1,8 @@
 package ast;
 
+import javax.xml.bind.Marshaller;
 import javax.xml.bind.annotation.*;
+import java.util.ArrayList;
 import java.util.List;
 
 public class ClassDecl extends AstNode {
@@ -18,6 +20,10 @@ public class ClassDecl extends AstNode {
     @XmlElement(name="methoddecl")
     private List<MethodDecl> methoddecls;
 
+    // Set while the fields and methods of a class read from a .mjast file haven't been decoded yet
+    private AstBinaryReader bodyReader;
+    private int bodyOffset;
+
     // for deserialization only!
     public ClassDecl() {
     }
@@ -30,6 +36,30 @@ public class ClassDecl extends AstNode {
         this.methoddecls = methoddecls;
     }
 
+    // The fields and methods are decoded from bodyReader the first time they're needed
+    ClassDecl(String name, String superName, AstBinaryReader bodyReader, int bodyOffset) {
+        super();
+        this.name = name;
+        this.superName = superName;
+        this.bodyReader = bodyReader;
+        this.bodyOffset = bodyOffset;
+    }
+
+    private void loadBody() {
+        if (bodyReader == null) {
+            return;
+        }
+        fields = new ArrayList<>();
+        methoddecls = new ArrayList<>();
+        bodyReader.readClassBody(bodyOffset, fields, methoddecls);
+        bodyReader = null;
+    }
+
+    // JAXB reads the fields directly rather than through the getters
+    private void beforeMarshal(Marshaller marshaller) {
+        loadBody();
+    }
+
     public void accept(Visitor v) {
         v.visit(this);
     }
@@ -43,15 +73,17 @@ public class ClassDecl extends AstNode {
     }
 
     public List<VarDecl> fields() {
+        loadBody();
         return fields;
     }
 
     public List<MethodDecl> methoddecls() {
+        loadBody();
         return methoddecls;
     }
 
     boolean hasMethod(String name) {
-        for (var method : methoddecls) {
+        for (var method : methoddecls()) {
             if (name.equals(method.name())) {
                 return true;
             }
@@ -0,0 +1,47 @@
+package ast;
+
+import jdk.jfr.*;
+
+/*
+ * JFR event for a single visitor's pass over a class declaration, so profiles show which user classes are expensive
+ * instead of generic accept/visit frames. Costs nothing beyond the allocation when the event isn't enabled.
+ * */
+@Name("mjavac.ClassDecl")
+@Label("Class Declaration")
+@Category({"mjavac", "Visitors"})
+@Description("A visitor's pass over a single class declaration")
+public class ClassDeclEvent extends Event implements ICompilerEvent {
+    @Label("Visitor")
+    String visitor;
+
+    @Label("Class")
+    String className;
+
+    @Label("AST Nodes")
+    int nodeCount;
+
+    // Kept for counting its nodes, which is only done when the event is committed. JFR ignores transient fields
+    private transient ClassDecl classDecl;
+
+    static ClassDeclEvent start(Visitor visitor, ClassDecl classDecl) {
+        var event = new ClassDeclEvent();
+        if (event.isEnabled()) {
+            event.visitor = visitor.getClass().getSimpleName();
+            event.className = classDecl.name();
+            event.classDecl = classDecl;
+            event.begin();
+        }
+        return event;
+    }
+
+    @Override
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            var nodeCounter = new AstNodeCountVisitor();
+            classDecl.accept(nodeCounter);
+            nodeCount = nodeCounter.getField();
+            commit();
+        }
+    }
+}
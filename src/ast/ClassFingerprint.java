@@ -0,0 +1,105 @@
+package ast;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/*
+ * Hash of everything the LLVM of a single class depends on: the class's own subtree, and the layout
+ * (fields and vtable, inherited ones included) of every class it can reach through its references,
+ * its superclasses, and the field and method types of those classes.
+ * When a superclass adds a field or overrides a method, the layouts change and so do the fingerprints
+ * of all the classes that depend on it.
+ * */
+public class ClassFingerprint {
+
+    private final ClassInfo classInfo;
+
+    public ClassFingerprint(ClassInfo classInfo) {
+        this.classInfo = classInfo;
+    }
+
+    private static String describeType(AstType type) {
+        if (type instanceof RefType) {
+            return "ref " + ((RefType) type).id();
+        }
+        return type.getClass().getSimpleName();
+    }
+
+    private static void addTypeReference(AstType type, Set<String> classNames) {
+        if (type instanceof RefType) {
+            classNames.add(((RefType) type).id());
+        }
+    }
+
+    private String layout(String className, Set<String> referencedClasses) {
+        ObjectVTable vTable = classInfo.getClassVTable(className);
+        if (vTable == null) {
+            return className + " missing\n";
+        }
+
+        StringBuilder layout = new StringBuilder(className);
+        layout.append(" extends ").append(vTable.superName()).append("\n");
+        for (var field : vTable.getFields().entrySet()) {
+            layout.append("field ").append(field.getKey()).append(" ").append(describeType(field.getValue())).append("\n");
+            addTypeReference(field.getValue(), referencedClasses);
+        }
+        for (var method : vTable.getMethods().entrySet()) {
+            MethodSignature signature = method.getValue();
+            layout.append("method ").append(method.getKey()).append(" ").append(signature.getName())
+                    .append(" ").append(describeType(signature.getRet()));
+            addTypeReference(signature.getRet(), referencedClasses);
+            for (var formal : signature.getFormals()) {
+                layout.append(", ").append(describeType(formal.type()));
+                addTypeReference(formal.type(), referencedClasses);
+            }
+            layout.append("\n");
+        }
+        if (vTable.superName() != null) {
+            referencedClasses.add(vTable.superName());
+        }
+        return layout.toString();
+    }
+
+    public String of(ClassDecl classDecl) {
+        var printer = new AstPrintVisitor();
+        classDecl.accept(printer);
+
+        var referencesVisitor = new ClassReferencesVisitor();
+        classDecl.accept(referencesVisitor);
+
+        // Sorted by class name, so the hash doesn't depend on the order the dependencies were found in
+        Map<String, String> layouts = new TreeMap<>();
+        Deque<String> toVisit = new ArrayDeque<>(referencesVisitor.getField());
+        toVisit.add(classDecl.name());
+        while (!toVisit.isEmpty()) {
+            String className = toVisit.pop();
+            if (!layouts.containsKey(className)) {
+                Set<String> referencedClasses = new TreeSet<>();
+                layouts.put(className, layout(className, referencedClasses));
+                toVisit.addAll(referencedClasses);
+            }
+        }
+
+        return sha256(printer.getString() + "\n" + String.join("", layouts.values()));
+    }
+
+    private static String sha256(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest(text.getBytes(StandardCharsets.UTF_8))) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
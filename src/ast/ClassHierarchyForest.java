@@ -7,32 +7,25 @@ public class ClassHierarchyForest implements IClassHierarchyForest {
     private Program program;
     private ASTUtils astUtils;
     private ArrayList<ClassTree> trees;
+    private Map<String, ClassTree> treesByName;
 
     public ClassHierarchyForest(Program program) throws InvalidSemanticsException {
         this.program = program;
         this.astUtils = new ASTUtils(program);
         trees = new ArrayList<ClassTree>();
+        treesByName = new HashMap<>();
         initForest();
+        numberTrees();
     }
 
-    /*
-    * This method receives a forest and a name of a class,
-    * and returns the subtree in this forest that matches the class.
-    * */
-    private ClassTree getClassTreeByNameFromForest(List<ClassTree> forest, String name) {
-        ClassDecl methodOwnerClass = astUtils.getClassFromName(name);
-        ClassTree methodOwnerClassTree = null;
-        for(ClassTree tree : forest) {
-            methodOwnerClassTree = tree.getClassTree(methodOwnerClass);
-            if (methodOwnerClassTree != null) {
-                break;
-            }
-        }
-        return methodOwnerClassTree;
+    // null when the program has no such class
+    private ClassTree getClassTreeByName(String name) {
+        return treesByName.get(name);
     }
 
     public ClassDecl getClassDeclByName(String name) {
-        return this.getClassTreeByNameFromForest(this.trees, name).getClassDecl();
+        ClassTree tree = getClassTreeByName(name);
+        return tree == null ? null : tree.getClassDecl();
     }
 
     /*
@@ -40,40 +33,31 @@ public class ClassHierarchyForest implements IClassHierarchyForest {
      * classes and link them according to the inheritance.
      * */
     private void initForest() throws InvalidSemanticsException {
-        var tempForest = new LinkedList<ClassTree>();
-        List<String> classNames = new ArrayList<>();
+        // The index of every class in the program, a superclass has to come before its subclasses
+        Map<String, Integer> classIndexes = new HashMap<>();
 
         String mainClassName = program.mainClass().name();
 
         for (ClassDecl classDecl : program.classDecls()) {
-            if (classDecl.name().equals(mainClassName) || classNames.contains(classDecl.name())) {
+            if (classDecl.name().equals(mainClassName) || classIndexes.containsKey(classDecl.name())) {
                 throw new InvalidSemanticsException(); // Refrain from duplicated class names
             }
-            tempForest.add(new ClassTree(classDecl));
-            classNames.add(classDecl.name());
+            classIndexes.put(classDecl.name(), classIndexes.size());
         }
 
-        ClassTree tree;
-        while (!tempForest.isEmpty()) {
-            tree = tempForest.pop();
-            String superName = tree.getClassDecl().superName();
+        for (ClassDecl classDecl : program.classDecls()) {
+            ClassTree tree = new ClassTree(classDecl);
+            treesByName.put(classDecl.name(), tree);
+            String superName = classDecl.superName();
             if (superName != null) {
-                if (superName.equals(mainClassName) || !classNames.contains(superName) || superName.equals(tree.getClassDecl().name()) ||
-                        classNames.indexOf(tree.getClassDecl().name()) < classNames.indexOf(superName)) {
+                Integer superIndex = classIndexes.get(superName);
+                if (superName.equals(mainClassName) || superIndex == null || superName.equals(classDecl.name()) ||
+                        classIndexes.get(classDecl.name()) < superIndex) {
                     throw new InvalidSemanticsException(); // Cyclic, bad or self inheritance
                 }
 
-                ClassTree parentTree = getClassTreeByNameFromForest(tempForest, superName);
-                if (parentTree != null) {
-                    // Set the tree as parent to the current tree
-                    parentTree.addChild(tree);
-                } else {
-                    ClassTree parentTreeFromResolved = getClassTreeByNameFromForest(trees, superName);
-                    if (parentTreeFromResolved != null) {
-                        // Set the tree as parent to the current tree
-                        parentTreeFromResolved.addChild(tree);
-                    }
-                }
+                // Set the tree as parent to the current tree, the superclass came first so its tree exists
+                treesByName.get(superName).addChild(tree);
             } else {
                 // When the tree doesn't have a place to be added, add it to our forest.
                 trees.add(tree);
@@ -81,6 +65,35 @@ public class ClassHierarchyForest implements IClassHierarchyForest {
         }
     }
 
+    /*
+     * Numbers the trees in preorder and postorder over the whole forest, so a class is a subclass of another exactly
+     * when its interval is inside the other's. Iterative, hierarchies can be deeper than the stack.
+     * */
+    private void numberTrees() {
+        int preorder = 0;
+        int postorder = 0;
+        // The path from the root to the tree being numbered, with the preorders and the children left of each
+        Deque<ClassTree> path = new ArrayDeque<>();
+        Deque<Integer> preorders = new ArrayDeque<>();
+        Deque<Iterator<ClassTree>> children = new ArrayDeque<>();
+        for (ClassTree root : trees) {
+            path.push(root);
+            preorders.push(preorder++);
+            children.push(root.getChildren().iterator());
+            while (!path.isEmpty()) {
+                if (children.peek().hasNext()) {
+                    ClassTree child = children.peek().next();
+                    path.push(child);
+                    preorders.push(preorder++);
+                    children.push(child.getChildren().iterator());
+                } else {
+                    children.pop();
+                    path.pop().setOrder(preorders.pop(), postorder++);
+                }
+            }
+        }
+    }
+
     @Override
     public ClassTree getHighestClassTreeByMethod(int lineNumber) {
         MethodDecl methodDecl = astUtils.getMethodFromLineNumber(lineNumber);
@@ -88,11 +101,8 @@ public class ClassHierarchyForest implements IClassHierarchyForest {
         ClassTree methodOwnerClassTree = null;
 
         // Get the relevant tree object
-        for(ClassTree tree : trees) {
-            methodOwnerClassTree = tree.getClassTree(methodOwnerClass);
-            if (methodOwnerClassTree != null) {
-                break;
-            }
+        if (methodOwnerClass != null) {
+            methodOwnerClassTree = findClassTree(methodOwnerClass);
         }
 
         // Get the most upper parent we can find with this method in, until we reach to the root of the tree
@@ -112,27 +122,18 @@ public class ClassHierarchyForest implements IClassHierarchyForest {
     }
 
     public ClassTree findClassTree(ClassDecl classDecl){
-        for (ClassTree tree : trees){
-            ClassTree find = tree.getClassTree(classDecl);
-            if(find != null)
-                return find;
-        }
-        return null;
+        ClassTree tree = getClassTreeByName(classDecl.name());
+        return tree != null && tree.getClassDecl() == classDecl ? tree : null;
     }
 
+    // Whether child is parent or one of its subclasses, false when either isn't a class of the program
     public boolean isParent(String parent, String child) {
-        var cltree = getClassTreeByNameFromForest(this.trees, child);
         if (parent.equals(child)) {
             return true;
         }
-
-        while (cltree.getParent() != null) {
-            cltree = cltree.getParent();
-            if (cltree.getClassDecl().name().equals(parent)) {
-                return true;
-            }
-        }
-        return false;
+        ClassTree parentTree = getClassTreeByName(parent);
+        ClassTree childTree = getClassTreeByName(child);
+        return parentTree != null && childTree != null && childTree.isDescendantOf(parentTree);
     }
 
     public void getTreesNames(List<String> names) {
@@ -1,6 +1,5 @@
 package ast;
 
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -8,9 +7,10 @@ import static java.util.Map.entry;
 
 public class ClassInfo {
 
-    private Map<String, ObjectVTable> classesToInfo = new HashMap<>();
+    // Insertion ordered, so anything iterating the classes emits them in program order
+    private Map<String, ObjectVTable> classesToInfo = new LinkedHashMap<>();
 
-    private Map<String, ClassDecl> classesToNodes = new HashMap<>();
+    private Map<String, ClassDecl> classesToNodes = new LinkedHashMap<>();
 
     Map<Class, Integer> astTypeToSize = Map.ofEntries(
             entry(BoolAstType.class, 1),
@@ -19,6 +19,19 @@ public class ClassInfo {
             entry(RefType.class, 8)
     );
 
+    /*
+     * Collects the vtable and node of every class from the symbol tables, without formatting any LLVM.
+     * */
+    public static ClassInfo of(Program program, IAstToSymbolTable astToSymbolTable) {
+        var classInfo = new ClassInfo();
+        for (ClassDecl classDecl : program.classDecls()) {
+            SymbolTable symbolTable = astToSymbolTable.getSymbolTable(classDecl);
+            SymbolTableItem classItem = symbolTable.get(classDecl.name(), SymbolType.Class);
+            classInfo.addClassInfo(classItem.getId(), classItem.getVTable(), classDecl);
+        }
+        return classInfo;
+    }
+
     public void addClassInfo(String className, ObjectVTable info, ClassDecl node) {
 
         classesToInfo.put(className, info);
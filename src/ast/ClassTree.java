@@ -8,6 +8,9 @@ public class ClassTree implements IClassTree {
     private ClassDecl data = null;
     private List<ClassTree> children = new ArrayList<>();
     private ClassTree parent = null;
+    // The tree's interval in ClassHierarchyForest's numbering, the descendants' intervals nest in it
+    private int preorder = -1;
+    private int postorder = -1;
 
     public ClassTree(ClassDecl data) {
         this.data = data;
@@ -52,6 +55,16 @@ public class ClassTree implements IClassTree {
 
     public ClassDecl getData(){return data;}
 
+    void setOrder(int preorder, int postorder) {
+        this.preorder = preorder;
+        this.postorder = postorder;
+    }
+
+    // True for the tree itself too. Only once both trees were numbered by the same ClassHierarchyForest
+    public boolean isDescendantOf(ClassTree ancestor) {
+        return ancestor.preorder <= preorder && postorder <= ancestor.postorder;
+    }
+
     public ClassTree getClassTree(ClassDecl classDecl) {
         if (data == classDecl) {
             return this;
@@ -0,0 +1,32 @@
+package ast;
+
+import jdk.jfr.FlightRecorder;
+
+/*
+ * Starts the compiler's JFR events, but only once Flight Recorder is running.
+ * Loading a JFR event class registers it with Flight Recorder, which costs more than compiling a small
+ * program, so without a recording the event classes aren't touched at all.
+ * */
+public class CompilerEvents {
+    private static final ICompilerEvent NONE = new ICompilerEvent() {
+        @Override
+        public void finish() {
+        }
+    };
+
+    private static boolean isRecording() {
+        return FlightRecorder.isInitialized();
+    }
+
+    public static ICompilerEvent phase(String name) {
+        return isRecording() ? PhaseEvent.start(name) : NONE;
+    }
+
+    public static ICompilerEvent classDecl(Visitor visitor, ClassDecl classDecl) {
+        return isRecording() ? ClassDeclEvent.start(visitor, classDecl) : NONE;
+    }
+
+    public static ICompilerEvent methodDecl(Visitor visitor, ClassDecl classDecl, MethodDecl methodDecl) {
+        return isRecording() ? MethodDeclEvent.start(visitor, classDecl, methodDecl) : NONE;
+    }
+}
@@ -0,0 +1,78 @@
+package ast;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+ * Buffered file streams that transparently handle gzip: outputs whose name ends with .gz are compressed,
+ * and inputs are decompressed whenever they start with the gzip magic bytes, whatever their name.
+ * Uncompressed sources are read through a memory mapping instead (see MappedAsciiReader).
+ * */
+public class CompressedFiles {
+    public static final String GZIP_EXTENSION = ".gz";
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private CompressedFiles() {
+    }
+
+    public static boolean isCompressedName(String filename) {
+        return filename.endsWith(GZIP_EXTENSION);
+    }
+
+    // The name without its .gz, so the extension under it still picks the format
+    public static String uncompressedName(String filename) {
+        if (isCompressedName(filename)) {
+            return filename.substring(0, filename.length() - GZIP_EXTENSION.length());
+        }
+        return filename;
+    }
+
+    private static boolean isGzipMagic(int first, int second) {
+        return first == (GZIPInputStream.GZIP_MAGIC & 0xff) && second == (GZIPInputStream.GZIP_MAGIC >> 8);
+    }
+
+    public static InputStream openInput(File file) throws IOException {
+        var in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE);
+        try {
+            in.mark(2);
+            int first = in.read();
+            int second = in.read();
+            in.reset();
+            if (isGzipMagic(first, second)) {
+                return new BufferedInputStream(new GZIPInputStream(in, BUFFER_SIZE), BUFFER_SIZE);
+            }
+            return in;
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    // The chars of a source file, read from a mapping of it unless it's compressed, in the default charset
+    public static Reader openReader(File file) throws IOException {
+        ByteBuffer bytes;
+        try (var channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return new InputStreamReader(openInput(file));
+            }
+            // The mapping stays valid after the channel is closed
+            bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (bytes.limit() >= 2 && isGzipMagic(bytes.get(0) & 0xff, bytes.get(1) & 0xff)) {
+            return new InputStreamReader(openInput(file));
+        }
+        return new MappedAsciiReader(bytes);
+    }
+
+    public static OutputStream openOutput(String filename) throws IOException {
+        var out = new FileOutputStream(filename);
+        if (isCompressedName(filename)) {
+            return new BufferedOutputStream(new GZIPOutputStream(out, BUFFER_SIZE), BUFFER_SIZE);
+        }
+        return new BufferedOutputStream(out, BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,104 @@
+package ast;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/*
+ * Encodes the output as UTF-8 into a direct buffer, which is written to the file whenever it fills up.
+ * The output is almost entirely ASCII, which is copied byte by byte without going through an encoder.
+ * */
+public class FileChannelOutputSink implements IOutputSink, Closeable {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    public FileChannelOutputSink(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        buffer.clear();
+    }
+
+    private void putBytes(byte[] bytes) {
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int length = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, length);
+            offset += length;
+        }
+    }
+
+    @Override
+    public IOutputSink append(CharSequence text) {
+        // null is written as "null", as Writer.append does
+        if (text == null) {
+            text = "null";
+        }
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                // Rare, so the rest of the text simply goes through String's encoder
+                putBytes(text.subSequence(i, length).toString().getBytes(StandardCharsets.UTF_8));
+                return this;
+            }
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            buffer.put((byte) c);
+        }
+        return this;
+    }
+
+    @Override
+    public IOutputSink append(char c) {
+        if (c >= 0x80) {
+            putBytes(String.valueOf(c).getBytes(StandardCharsets.UTF_8));
+            return this;
+        }
+        if (!buffer.hasRemaining()) {
+            drain();
+        }
+        buffer.put((byte) c);
+        return this;
+    }
+
+    @Override
+    public IOutputSink append(int i) {
+        return append(Integer.toString(i));
+    }
+
+    @Override
+    public void flush() {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+}
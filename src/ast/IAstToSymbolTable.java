@@ -2,5 +2,11 @@ package ast;
 
 public interface IAstToSymbolTable {
 
+    // The scope a Program, ClassDecl or MethodDecl opens, null for any other node. The scope of a statement or an
+    // expression is the one of its method, or of the program in the main class
     public SymbolTable getSymbolTable(AstNode node);
+
+    // What the name of an IdentifierExpr, AssignStatement, AssignArrayStatement, NewObjectExpr or RefType refers to,
+    // null when it doesn't resolve
+    public Binding getBinding(AstNode node);
 }
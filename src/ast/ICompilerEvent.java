@@ -0,0 +1,8 @@
+package ast;
+
+/*
+ * A JFR event that has begun, finish() ends and commits it.
+ * */
+public interface ICompilerEvent {
+    void finish();
+}
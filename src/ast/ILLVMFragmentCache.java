@@ -0,0 +1,12 @@
+package ast;
+
+/*
+ * Stores the LLVM emitted for a single class, keyed by its ClassFingerprint.
+ * */
+public interface ILLVMFragmentCache {
+
+    // returns null when there's no fragment for this fingerprint
+    String getFragment(String fingerprint);
+
+    void putFragment(String fingerprint, String fragment);
+}
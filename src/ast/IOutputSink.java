@@ -0,0 +1,16 @@
+package ast;
+
+/*
+ * Where the printing visitors write their output, so a whole module doesn't have to be held in memory
+ * before it's written out. I/O errors are thrown as UncheckedIOException, since visit methods can't throw.
+ * */
+public interface IOutputSink {
+
+    IOutputSink append(CharSequence text);
+
+    IOutputSink append(char c);
+
+    IOutputSink append(int i);
+
+    void flush();
+}
@@ -0,0 +1,11 @@
+package ast;
+
+import java.util.List;
+
+/*
+ * A visitor that renames a variable or a method in place, and remembers which nodes it changed.
+ * */
+public interface IRenameVisitor extends Visitor {
+    // Every node whose name was replaced, in the order they were visited
+    public List<AstNode> renamedNodes();
+}
@@ -5,6 +5,7 @@ import LLVM.*;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 public class LLVMPrintVisitor implements IVisitorWithField<String> {
     private final String CALLOC = "@calloc";
@@ -12,7 +13,7 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
 
     private final IAstToSymbolTable symbolTable;
     private final ClassHierarchyForest classHierarchy;
-    private StringBuilder builder = new StringBuilder();
+    private IOutputSink builder;
     private int indent = 0;
     private int labelsCounter = 0;
     private String currentRegisterName;
@@ -20,15 +21,29 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
     private ILLVMCommandFormatter formatter;
     private LLVMRegisterAllocator registerAllocator;
     private ClassDecl currentClass;
+    // The scope of the formals and locals being declared
+    private MethodDecl currentMethod;
     private ClassInfo classInfo;
+    private ILLVMFragmentCache fragmentCache;
+    private LLVMPreProcessVisitor preProcessVisitor;
+    private int instructionsCount = 0;
 
+    // Only the output itself when printing into the default StringOutputSink
     public String getString() {
         return builder.toString();
     }
 
-    private void appendWithIndent(String str) {
-        builder.append("\t".repeat(indent));
+    // Every instruction goes through here, labels and definitions don't
+    private void appendWithIndent(CharSequence str) {
+        for (int i = 0; i < indent; i++) {
+            builder.append('\t');
+        }
         builder.append(str);
+        instructionsCount++;
+    }
+
+    public int getInstructionsCount() {
+        return instructionsCount;
     }
 
     private LLVMType ASTypeToLLVMType(AstType type) {
@@ -83,6 +98,11 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
     }
 
     public LLVMPrintVisitor(IAstToSymbolTable symbolTable, LLVMRegisterAllocator registerAllocator, ILLVMCommandFormatter formatter, ClassHierarchyForest classHierarchy) {
+        this(symbolTable, registerAllocator, formatter, classHierarchy, new StringOutputSink());
+    }
+
+    public LLVMPrintVisitor(IAstToSymbolTable symbolTable, LLVMRegisterAllocator registerAllocator, ILLVMCommandFormatter formatter, ClassHierarchyForest classHierarchy, IOutputSink sink) {
+        this.builder = sink;
         this.symbolTable = symbolTable;
         this.registerAllocator = registerAllocator;
         this.formatter = formatter;
@@ -90,17 +110,33 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
     }
 
 
+    // With a fragment cache, classes whose fingerprint didn't change are copied from the cache instead of visited
+    public void setFragmentCache(ILLVMFragmentCache fragmentCache) {
+        this.fragmentCache = fragmentCache;
+    }
+
+    /*
+     * Uses a preprocessing that already visited the program, instead of running one in visit(Program).
+     * It should have emitted the vtables into this visitor's sink, since they come first in the module.
+     * */
+    public void setPreProcess(LLVMPreProcessVisitor preProcessVisitor) {
+        this.preProcessVisitor = preProcessVisitor;
+    }
+
     @Override
     public void visit(Program program) {
-        ast.LLVMPreProcessVisitor preProcessVisitor = new ast.LLVMPreProcessVisitor(symbolTable,formatter,registerAllocator);
-        preProcessVisitor.visit(program);
+        if (preProcessVisitor == null) {
+            preProcessVisitor = new ast.LLVMPreProcessVisitor(symbolTable, formatter, registerAllocator, null, builder);
+            preProcessVisitor.visit(program);
+        }
         this.classInfo = preProcessVisitor.getClassInfo();
-        builder.append(preProcessVisitor.getField());
         builder.append(getHelperFunctions());
 
         program.mainClass().accept(this);
         for (ClassDecl classdecl : program.classDecls()) {
+            var event = CompilerEvents.classDecl(this, classdecl);
             classdecl.accept(this);
+            event.finish();
         }
     }
 
@@ -109,11 +145,38 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
     @Override
     public void visit(ClassDecl classDecl) {
         currentClass = classDecl;
+        // Labels restart in every class, so its LLVM doesn't depend on the classes emitted before it
+        labelsCounter = 0;
+
+        String fingerprint = null;
+        if (fragmentCache != null) {
+            fingerprint = new ClassFingerprint(classInfo).of(classDecl);
+            String fragment = fragmentCache.getFragment(fingerprint);
+            if (fragment != null) {
+                builder.append(fragment);
+                return;
+            }
+        }
+
+        // The class is printed on its own so it can be stored, and only then written to the real sink
+        IOutputSink sink = builder;
+        if (fragmentCache != null) {
+            builder = new StringOutputSink();
+        }
 //        for (var fieldDecl : classDecl.fields()) {
 //            fieldDecl.accept(this);
 //        }
         for (var methodDecl : classDecl.methoddecls()) {
+            var event = CompilerEvents.methodDecl(this, classDecl, methodDecl);
             methodDecl.accept(this);
+            event.finish();
+        }
+
+        if (fragmentCache != null) {
+            String fragment = builder.toString();
+            builder = sink;
+            builder.append(fragment);
+            fragmentCache.putFragment(fingerprint, fragment);
         }
     }
 
@@ -130,6 +193,7 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
 
     @Override
     public void visit(MethodDecl methodDecl) {
+        currentMethod = methodDecl;
         String methodName = String.format("%s.%s", currentClass.name(), methodDecl.name());
         var params = new ArrayList<LLVMMethodParam>();
         params.add(new LLVMMethodParam(LLVMType.Address, "%this"));
@@ -160,7 +224,7 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
 
     @Override
     public void visit(FormalArg formalArg) {
-        String reg_name = registerAllocator.allocateAddressRegister(formalArg.name(), SymbolType.Var, formalArg);
+        String reg_name = registerAllocator.allocateAddressRegister(formalArg.name(), SymbolType.Var, currentMethod);
         formalArg.type().accept(this);
         appendWithIndent(formatter.formatAlloca(reg_name, ASTypeToLLVMType(formalArg.type())));
         appendWithIndent(formatter.formatStore(ASTypeToLLVMType(formalArg.type()), formatter.formatRegisterName(formatter.formatFormalArgName(formalArg.name())), reg_name));
@@ -168,7 +232,7 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
 
     @Override
     public void visit(VarDecl varDecl) {
-        String reg_name = registerAllocator.allocateAddressRegister(varDecl.name(),SymbolType.Var, varDecl);
+        String reg_name = registerAllocator.allocateAddressRegister(varDecl.name(),SymbolType.Var, currentMethod);
         appendWithIndent(formatter.formatAlloca(reg_name, ASTypeToLLVMType(varDecl.type())));
     }
 
@@ -236,26 +300,26 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
         appendWithIndent(formatter.formatCall("", LLVMType.Void, "@print_int", params));
     }
 
-    private String loadFieldOrLocalVar(AstNode context, String name) {
-        String resultRegister = registerAllocator.allocateAddressRegister(name,SymbolType.Var, context);
-        var symbolTableOfStmt = symbolTable.getSymbolTable(context);
-        var symbolTableEntry = symbolTableOfStmt.get(new SymbolItemKey(name, SymbolType.Var));
-        if (symbolTableEntry.getKind() != SymbolType.Field) {
-            return resultRegister;
+    // NameResolutionVisitor bound the names, one that doesn't resolve fails the way looking it up did
+    private Binding bindingOf(AstNode node) {
+        Binding binding = symbolTable.getBinding(node);
+        if (binding == null) {
+            throw new NoSuchElementException();
         }
+        return binding;
+    }
 
-
-        ObjectVTable objectVtable = classInfo.getClassVTable(currentClass.name());
-        var field = objectVtable.getFields().get(name);
-        if (field != null) {
-            String vtableRegister = registerAllocator.allocateNewTempRegister();
-            int fieldOffset = objectVtable.getFieldIndex(name);
-            appendWithIndent(formatter.formatGetElementPtr(vtableRegister, LLVMType.Byte, "%this", String.format("%d", fieldOffset), ""));
-            String bitcastRegister = registerAllocator.allocateNewTempRegister();
-            appendWithIndent(formatter.formatBitcast(bitcastRegister, LLVMType.Byte, vtableRegister, ASTypeToLLVMType(symbolTableEntry.getType())));
-            resultRegister = bitcastRegister;
+    private String loadFieldOrLocalVar(Binding binding) {
+        String resultRegister = registerAllocator.allocateAddressRegister(binding.declaration());
+        if (binding.kind() != Binding.Kind.FIELD) {
+            return resultRegister;
         }
-        return resultRegister;
+
+        String vtableRegister = registerAllocator.allocateNewTempRegister();
+        appendWithIndent(formatter.formatGetElementPtr(vtableRegister, LLVMType.Byte, "%this", String.format("%d", binding.slot()), ""));
+        String bitcastRegister = registerAllocator.allocateNewTempRegister();
+        appendWithIndent(formatter.formatBitcast(bitcastRegister, LLVMType.Byte, vtableRegister, ASTypeToLLVMType(binding.type())));
+        return bitcastRegister;
     }
 
     @Override
@@ -263,11 +327,9 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
         assignStatement.rv().accept(this);
         String valueLocation = currentRegisterName;
 
-        var where = loadFieldOrLocalVar(assignStatement, assignStatement.lv());
-
-        var symbolTableOfStmt = symbolTable.getSymbolTable(assignStatement);
-        var symbolTableEntry = symbolTableOfStmt.get(new SymbolItemKey(assignStatement.lv(), SymbolType.Var));
-        appendWithIndent(formatter.formatStore(ASTypeToLLVMType(symbolTableEntry.getType()), valueLocation, where));
+        var binding = bindingOf(assignStatement);
+        var where = loadFieldOrLocalVar(binding);
+        appendWithIndent(formatter.formatStore(ASTypeToLLVMType(binding.type()), valueLocation, where));
     }
 
     // implements the array store arr[index] = rv
@@ -276,7 +338,7 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
     public void visit(AssignArrayStatement assignArrayStatement) {
 
         // Load the address of the array
-        String array = loadFieldOrLocalVar(assignArrayStatement, assignArrayStatement.lv());
+        String array = loadFieldOrLocalVar(bindingOf(assignArrayStatement));
         String addressArray = registerAllocator.allocateNewTempRegister();
         appendWithIndent(formatter.formatLoad(addressArray, LLVMType.IntPointer, array));
 
@@ -483,15 +545,13 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
 
     @Override
     public void visit(IdentifierExpr e) {
-        var symbolTableOfStmt = symbolTable.getSymbolTable(e);
-        var symbolTableEntry = symbolTableOfStmt.get(new SymbolItemKey(e.id(), SymbolType.Var));
-
-        String resultRegister = loadFieldOrLocalVar(e, e.id());
+        var binding = bindingOf(e);
+        String resultRegister = loadFieldOrLocalVar(binding);
 
         String tempRegister = registerAllocator.allocateNewTempRegister();
         currentRegisterName = tempRegister;
-        currentRegisterType = symbolTableEntry.getType();
-        appendWithIndent(formatter.formatLoad(tempRegister, ASTypeToLLVMType(symbolTableEntry.getType()), resultRegister));
+        currentRegisterType = binding.type();
+        appendWithIndent(formatter.formatLoad(tempRegister, ASTypeToLLVMType(binding.type()), resultRegister));
 
     }
 
@@ -583,11 +643,8 @@ public class LLVMPrintVisitor implements IVisitorWithField<String> {
         // %_2 = getelementptr [2 x i8*], [2 x i8*]* @.Base_vtable, i32 0, i32 0
         String vTableRegister = registerAllocator.allocateVTableRegister(e.classId());
         String elementPrtRegister = registerAllocator.allocateNewTempRegister();
-        LLVMType type = LLVMType.Address;
-
-        type.setLength(classInfo.getClassVTable(e.classId()).getMethods().size());
-        appendWithIndent(formatter.formatGetElementPtr(elementPrtRegister, type, vTableRegister, "0", "0"));
-        type.setLength(-1);
+        int vTableLength = classInfo.getClassVTable(e.classId()).getMethods().size();
+        appendWithIndent(formatter.formatArrayGetElementPtr(elementPrtRegister, LLVMType.Address, vTableLength, vTableRegister, "0", "0"));
 
 //        ; Set the vtable to the correct address.
 //                store i8** %_2, i8*** %_1
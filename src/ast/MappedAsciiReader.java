@@ -0,0 +1,83 @@
+package ast;
+
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/*
+ * Reads the chars of a memory mapped source. ASCII bytes are widened to chars directly, without a charset decoder.
+ * From the first non-ASCII byte on (usually in a comment), the rest is decoded with the default charset, as an
+ * InputStreamReader would, so the chars are the same either way.
+ * */
+class MappedAsciiReader extends Reader {
+    private final ByteBuffer bytes;
+    // null while everything read so far was ASCII
+    private CharsetDecoder decoder = null;
+    private boolean flushed = false;
+    // The bytes being widened, copied out of the mapping in one go
+    private byte[] chunk = new byte[0];
+
+    MappedAsciiReader(ByteBuffer bytes) {
+        this.bytes = bytes;
+    }
+
+    @Override
+    public int read(char[] cbuf, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (decoder != null) {
+            return decode(cbuf, off, len);
+        }
+
+        int position = bytes.position();
+        int count = Math.min(len, bytes.limit() - position);
+        if (count == 0) {
+            return -1;
+        }
+        if (chunk.length < count) {
+            chunk = new byte[count];
+        }
+        bytes.get(position, chunk, 0, count);
+        int i = 0;
+        for (; i < count; i++) {
+            byte b = chunk[i];
+            if (b < 0) {
+                break;
+            }
+            cbuf[off + i] = (char) b;
+        }
+        bytes.position(position + i);
+        if (i < count) {
+            decoder = Charset.defaultCharset().newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            if (i == 0) {
+                return decode(cbuf, off, len);
+            }
+        }
+        return i;
+    }
+
+    private int decode(char[] cbuf, int off, int len) {
+        if (flushed) {
+            return -1;
+        }
+        var out = CharBuffer.wrap(cbuf, off, len);
+        CoderResult result = decoder.decode(bytes, out, true);
+        if (result.isUnderflow()) {
+            decoder.flush(out);
+            flushed = !bytes.hasRemaining();
+        }
+        int read = out.position() - off;
+        return read == 0 && flushed ? -1 : read;
+    }
+
+    @Override
+    public void close() {
+    }
+}
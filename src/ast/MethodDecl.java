@@ -33,6 +33,9 @@ public class MethodDecl extends AstNode {
     @XmlElement(required = true)
     private ExprWrapper ret;
 
+    // The parsers locate methods, so they keep their whole SourceSpan
+    private long span = SourceSpan.NONE;
+
     // for deserialization only!
     public MethodDecl() {
 
@@ -42,7 +45,8 @@ public class MethodDecl extends AstNode {
                       List<FormalArg> formals, List<VarDecl> vardecls, List<Statement> body, Expr ret,
                       Integer lineNumber) {
         // lineNumber = null means it won't be marshaled to the XML
-        super(lineNumber);
+        super();
+        this.span = SourceSpan.of(lineNumber);
         this.returnType = new AstTypeWrapper(returnType);
         this.name = name;
         this.formals = formals;
@@ -56,6 +60,16 @@ public class MethodDecl extends AstNode {
         v.visit(this);
     }
 
+    @Override
+    public long span() {
+        return span;
+    }
+
+    @Override
+    public void setSpan(long span) {
+        this.span = span;
+    }
+
     public AstType returnType() {
         return returnType.t;
     }
@@ -0,0 +1,49 @@
+package ast;
+
+import jdk.jfr.*;
+
+/*
+ * JFR event for a single visitor's pass over a method declaration.
+ * */
+@Name("mjavac.MethodDecl")
+@Label("Method Declaration")
+@Category({"mjavac", "Visitors"})
+@Description("A visitor's pass over a single method declaration")
+public class MethodDeclEvent extends Event implements ICompilerEvent {
+    @Label("Visitor")
+    String visitor;
+
+    @Label("Class")
+    String className;
+
+    @Label("Method")
+    String methodName;
+
+    @Label("AST Nodes")
+    int nodeCount;
+
+    private transient MethodDecl methodDecl;
+
+    static MethodDeclEvent start(Visitor visitor, ClassDecl classDecl, MethodDecl methodDecl) {
+        var event = new MethodDeclEvent();
+        if (event.isEnabled()) {
+            event.visitor = visitor.getClass().getSimpleName();
+            event.className = classDecl.name();
+            event.methodName = methodDecl.name();
+            event.methodDecl = methodDecl;
+            event.begin();
+        }
+        return event;
+    }
+
+    @Override
+    public void finish() {
+        end();
+        if (shouldCommit()) {
+            var nodeCounter = new AstNodeCountVisitor();
+            methodDecl.accept(nodeCounter);
+            nodeCount = nodeCounter.getField();
+            commit();
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package ast;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/*
+ * Runs once after the SymbolTableVisitor and binds every IdentifierExpr, assigned variable (on its AssignStatement or
+ * AssignArrayStatement), NewObjectExpr and RefType to its declaration, see Binding.
+ * A name that doesn't resolve is left without a binding, the semantic checks report it.
+ * Every name is looked up in the symbol tables once per method, however many times the method uses it.
+ * */
+public class NameResolutionVisitor implements Visitor {
+
+    private final AstToSymbolTable astToSymbolTable;
+    private final Map<String, Binding> classes = new HashMap<>();
+    private ClassDecl currentClass = null;
+    private SymbolTable scope;
+    // The names resolved in the current method, null values are names that don't resolve
+    private final Map<String, Binding> resolved = new HashMap<>();
+    private final Map<String, Integer> formalSlots = new HashMap<>();
+    private final Map<String, Integer> localSlots = new HashMap<>();
+
+    public NameResolutionVisitor(AstToSymbolTable astToSymbolTable) {
+        this.astToSymbolTable = astToSymbolTable;
+    }
+
+    private Binding resolveVariable(String name) {
+        Binding binding = resolved.get(name);
+        if (binding == null && !resolved.containsKey(name)) {
+            binding = lookupVariable(name);
+            resolved.put(name, binding);
+        }
+        return binding;
+    }
+
+    private Binding lookupVariable(String name) {
+        SymbolTableItem item = scope.get(name, SymbolType.Var);
+        if (item == SymbolTable.NOT_FOUND) {
+            return null;
+        }
+
+        if (item.getKind() == SymbolType.Field) {
+            ObjectVTable vTable = classes.get(currentClass.name()).declaration().getVTable();
+            return new Binding(Binding.Kind.FIELD, item, fieldOwner(name), vTable.getFieldIndex(name));
+        }
+        Integer slot = localSlots.get(name);
+        if (slot != null) {
+            return new Binding(Binding.Kind.LOCAL, item, currentClass.name(), slot);
+        }
+        return new Binding(Binding.Kind.FORMAL, item, currentClass.name(), formalSlots.get(name));
+    }
+
+    // The highest superclass of the current class with the field, as the vtables include the inherited fields
+    private String fieldOwner(String name) {
+        String owner = currentClass.name();
+        String superName = currentClass.superName();
+        while (superName != null) {
+            Binding superClass = classes.get(superName);
+            if (superClass == null || !superClass.declaration().getVTable().getFields().containsKey(name)) {
+                break;
+            }
+            owner = superName;
+            superName = superClass.declaration().getVTable().superName();
+        }
+        return owner;
+    }
+
+    private void bindVariable(AstNode node, String name) {
+        Binding binding = resolveVariable(name);
+        if (binding != null) {
+            astToSymbolTable.addBinding(node, binding);
+        }
+    }
+
+    private void bindClass(AstNode node, String name) {
+        Binding binding = classes.get(name);
+        if (binding != null) {
+            astToSymbolTable.addBinding(node, binding);
+        }
+    }
+
+    private void visitBinaryExpr(BinaryExpr e) {
+        e.e1().accept(this);
+        e.e2().accept(this);
+    }
+
+    @Override
+    public void visit(Program program) {
+        for (ClassDecl classDecl : program.classDecls()) {
+            SymbolTable symbolTable = astToSymbolTable.getSymbolTable(classDecl);
+            SymbolTableItem classItem = symbolTable.get(classDecl.name(), SymbolType.Class);
+            classes.put(classDecl.name(), new Binding(Binding.Kind.CLASS, classItem, classDecl.name(), -1));
+        }
+
+        // The main class has no variables, its statements are in the program's scope
+        scope = astToSymbolTable.getSymbolTable(program);
+        program.mainClass().accept(this);
+        resolved.clear();
+
+        for (ClassDecl classDecl : program.classDecls()) {
+            classDecl.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(ClassDecl classDecl) {
+        currentClass = classDecl;
+        for (var fieldDecl : classDecl.fields()) {
+            fieldDecl.accept(this);
+        }
+        for (var methodDecl : classDecl.methoddecls()) {
+            methodDecl.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(MainClass mainClass) {
+        mainClass.mainStatement().accept(this);
+    }
+
+    @Override
+    public void visit(MethodDecl methodDecl) {
+        scope = astToSymbolTable.getSymbolTable(methodDecl);
+        resolved.clear();
+        formalSlots.clear();
+        localSlots.clear();
+        for (int i = 0; i < methodDecl.formals().size(); i++) {
+            formalSlots.put(methodDecl.formals().get(i).name(), i);
+        }
+        for (int i = 0; i < methodDecl.vardecls().size(); i++) {
+            localSlots.put(methodDecl.vardecls().get(i).name(), i);
+        }
+
+        methodDecl.returnType().accept(this);
+        for (var formal : methodDecl.formals()) {
+            formal.accept(this);
+        }
+        for (var varDecl : methodDecl.vardecls()) {
+            varDecl.accept(this);
+        }
+        for (var stmt : methodDecl.body()) {
+            stmt.accept(this);
+        }
+        methodDecl.ret().accept(this);
+    }
+
+    @Override
+    public void visit(FormalArg formalArg) {
+        formalArg.type().accept(this);
+    }
+
+    @Override
+    public void visit(VarDecl varDecl) {
+        varDecl.type().accept(this);
+    }
+
+    @Override
+    public void visit(BlockStatement blockStatement) {
+        for (var s : blockStatement.statements()) {
+            s.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(IfStatement ifStatement) {
+        ifStatement.cond().accept(this);
+        ifStatement.thencase().accept(this);
+        ifStatement.elsecase().accept(this);
+    }
+
+    @Override
+    public void visit(WhileStatement whileStatement) {
+        whileStatement.cond().accept(this);
+        whileStatement.body().accept(this);
+    }
+
+    @Override
+    public void visit(SysoutStatement sysoutStatement) {
+        sysoutStatement.arg().accept(this);
+    }
+
+    @Override
+    public void visit(AssignStatement assignStatement) {
+        bindVariable(assignStatement, assignStatement.lv());
+        assignStatement.rv().accept(this);
+    }
+
+    @Override
+    public void visit(AssignArrayStatement assignArrayStatement) {
+        bindVariable(assignArrayStatement, assignArrayStatement.lv());
+        assignArrayStatement.index().accept(this);
+        assignArrayStatement.rv().accept(this);
+    }
+
+    @Override
+    public void visit(AndExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(LtExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(AddExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(SubtractExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(MultExpr e) {
+        visitBinaryExpr(e);
+    }
+
+    @Override
+    public void visit(ArrayAccessExpr e) {
+        e.arrayExpr().accept(this);
+        e.indexExpr().accept(this);
+    }
+
+    @Override
+    public void visit(ArrayLengthExpr e) {
+        e.arrayExpr().accept(this);
+    }
+
+    @Override
+    public void visit(MethodCallExpr e) {
+        e.ownerExpr().accept(this);
+        for (Expr arg : e.actuals()) {
+            arg.accept(this);
+        }
+    }
+
+    @Override
+    public void visit(IntegerLiteralExpr e) {
+    }
+
+    @Override
+    public void visit(TrueExpr e) {
+    }
+
+    @Override
+    public void visit(FalseExpr e) {
+    }
+
+    @Override
+    public void visit(IdentifierExpr e) {
+        bindVariable(e, e.id());
+    }
+
+    @Override
+    public void visit(ThisExpr e) {
+    }
+
+    @Override
+    public void visit(NewIntArrayExpr e) {
+        e.lengthExpr().accept(this);
+    }
+
+    @Override
+    public void visit(NewObjectExpr e) {
+        bindClass(e, e.classId());
+    }
+
+    @Override
+    public void visit(NotExpr e) {
+        e.e().accept(this);
+    }
+
+    @Override
+    public void visit(IntAstType t) {
+    }
+
+    @Override
+    public void visit(BoolAstType t) {
+    }
+
+    @Override
+    public void visit(IntArrayAstType t) {
+    }
+
+    @Override
+    public void visit(RefType t) {
+        bindClass(t, t.id());
+    }
+}
@@ -0,0 +1,121 @@
+package ast;
+
+/*
+ * Interns the names of one compilation, so all the nodes with the same name share a single String.
+ * The lexer looks names up straight from its char buffer, so a name seen before doesn't allocate anything.
+ * Every name also gets a dense int id, in the order the names were first interned, for tables indexed by name.
+ * An open addressing table keyed by String.hashCode(). Not thread safe.
+ * */
+public class NameTable {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] hashes = new int[INITIAL_CAPACITY];
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private int size = 0;
+
+    public String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int mask = names.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String name = names[slot];
+            if (name == null) {
+                return add(slot, hash, new String(chars, offset, length));
+            }
+            if (hashes[slot] == hash && contentEquals(name, chars, offset, length)) {
+                return name;
+            }
+        }
+    }
+
+    public String intern(String name) {
+        int hash = name.hashCode();
+        int mask = names.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String existing = names[slot];
+            if (existing == null) {
+                return add(slot, hash, name);
+            }
+            if (hashes[slot] == hash && existing.equals(name)) {
+                return existing;
+            }
+        }
+    }
+
+    // Interns name if it wasn't, the ids go from 0 to size() - 1
+    public int idOf(String name) {
+        intern(name);
+        return findId(name);
+    }
+
+    // -1 when name was never interned, doesn't allocate
+    public int findId(String name) {
+        int hash = name.hashCode();
+        int mask = names.length - 1;
+        for (int slot = spread(hash) & mask; ; slot = (slot + 1) & mask) {
+            String existing = names[slot];
+            if (existing == null) {
+                return -1;
+            }
+            if (hashes[slot] == hash && existing.equals(name)) {
+                return ids[slot];
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean contentEquals(String name, char[] chars, int offset, int length) {
+        if (name.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (name.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String add(int slot, int hash, String name) {
+        names[slot] = name;
+        hashes[slot] = hash;
+        ids[slot] = size;
+        // Kept at most half full
+        if (++size * 2 > names.length) {
+            grow();
+        }
+        return name;
+    }
+
+    private void grow() {
+        String[] oldNames = names;
+        int[] oldHashes = hashes;
+        int[] oldIds = ids;
+        names = new String[oldNames.length * 2];
+        hashes = new int[oldNames.length * 2];
+        ids = new int[oldNames.length * 2];
+        int mask = names.length - 1;
+        for (int i = 0; i < oldNames.length; i++) {
+            if (oldNames[i] == null) {
+                continue;
+            }
+            int slot = spread(oldHashes[i]) & mask;
+            while (names[slot] != null) {
+                slot = (slot + 1) & mask;
+            }
+            names[slot] = oldNames[i];
+            hashes[slot] = oldHashes[i];
+            ids[slot] = oldIds[i];
+        }
+    }
+}
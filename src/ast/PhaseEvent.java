@@ -0,0 +1,30 @@
+package ast;
+
+import jdk.jfr.*;
+
+/*
+ * JFR event for a whole compiler phase, such as parsing or building the symbol tables.
+ * */
+@Name("mjavac.Phase")
+@Label("Compiler Phase")
+@Category("mjavac")
+@Description("A single phase of the compiler pipeline")
+public class PhaseEvent extends Event implements ICompilerEvent {
+    @Label("Phase")
+    String name;
+
+    static PhaseEvent start(String name) {
+        var event = new PhaseEvent();
+        if (event.isEnabled()) {
+            event.name = name;
+            event.begin();
+        }
+        return event;
+    }
+
+    @Override
+    public void finish() {
+        end();
+        commit();
+    }
+}
@@ -0,0 +1,73 @@
+package ast;
+
+/*
+ * Where a node is in its source, packed into a long so nodes don't box their line numbers:
+ * the line number, the column it starts at and the char offset right after its end, with the lexer's bases.
+ *
+ * bits 40-62  line number + 1, 0 when the node has none
+ * bits 28-39  column + 1, 0 when unknown
+ * bits 0-27   end offset + 1, 0 when unknown
+ *
+ * A line number that doesn't fit (only XML can have a negative one or one past 8M) is kept with bit 63 set and the
+ * line in the low 32 bits, without a column or an end offset. Columns past 4094 and offsets past 256M are unknown.
+ * */
+public final class SourceSpan {
+    public static final long NONE = 0;
+
+    private static final int LINE_SHIFT = 40;
+    private static final int COLUMN_SHIFT = 28;
+    private static final long LINE_MASK = (1L << 23) - 1;
+    private static final long COLUMN_MASK = (1L << 12) - 1;
+    private static final long OFFSET_MASK = (1L << 28) - 1;
+    private static final long WIDE_LINE = 1L << 63;
+
+    private SourceSpan() {
+    }
+
+    public static long of(int line) {
+        return of(line, -1, -1);
+    }
+
+    // A negative column or end offset is unknown
+    public static long of(int line, int column, int endOffset) {
+        if (line < 0 || line + 1L > LINE_MASK) {
+            return WIDE_LINE | (line & 0xffffffffL);
+        }
+        long span = (line + 1L) << LINE_SHIFT;
+        if (column >= 0 && column + 1L <= COLUMN_MASK) {
+            span |= (column + 1L) << COLUMN_SHIFT;
+        }
+        if (endOffset >= 0 && endOffset + 1L <= OFFSET_MASK) {
+            span |= endOffset + 1L;
+        }
+        return span;
+    }
+
+    public static boolean hasLine(long span) {
+        return span != NONE;
+    }
+
+    // Only meaningful when hasLine
+    public static int line(long span) {
+        if ((span & WIDE_LINE) != 0) {
+            return (int) span;
+        }
+        return (int) (span >>> LINE_SHIFT) - 1;
+    }
+
+    // -1 when unknown
+    public static int column(long span) {
+        if ((span & WIDE_LINE) != 0) {
+            return -1;
+        }
+        return (int) ((span >>> COLUMN_SHIFT) & COLUMN_MASK) - 1;
+    }
+
+    // -1 when unknown
+    public static int endOffset(long span) {
+        if ((span & WIDE_LINE) != 0) {
+            return -1;
+        }
+        return (int) (span & OFFSET_MASK) - 1;
+    }
+}
@@ -0,0 +1,35 @@
+package ast;
+
+/*
+ * Keeps the output in memory, toString() returns everything appended so far.
+ * */
+public class StringOutputSink implements IOutputSink {
+    private final StringBuilder builder = new StringBuilder();
+
+    @Override
+    public IOutputSink append(CharSequence text) {
+        builder.append(text);
+        return this;
+    }
+
+    @Override
+    public IOutputSink append(char c) {
+        builder.append(c);
+        return this;
+    }
+
+    @Override
+    public IOutputSink append(int i) {
+        builder.append(i);
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public String toString() {
+        return builder.toString();
+    }
+}
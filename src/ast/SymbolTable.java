@@ -1,31 +1,120 @@
 package ast;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.NoSuchElementException;
-
+/*
+ * A scope's symbols, looked up through the scopes enclosing it.
+ * The names are interned to ints by a NameTable the scopes of a program share, and each SymbolType has its own small
+ * open addressing table keyed by those ints, so a lookup hashes the name once and then only compares ints.
+ * A miss returns NOT_FOUND, and looking up by name and type allocates nothing.
+ * */
 public class SymbolTable {
 
-    private Map<SymbolItemKey, SymbolTableItem> _scopeToVars;
+    public static final SymbolTableItem NOT_FOUND = new SymbolTableItem(null, (AstType) null, null);
+
+    private static final SymbolType[] TYPES = SymbolType.values();
+    private static final int INITIAL_CAPACITY = 4;
+
+    // The symbols of one SymbolType, keyed by name id + 1 so 0 is an empty slot
+    private static class Entries {
+        private int[] keys = new int[INITIAL_CAPACITY];
+        private SymbolTableItem[] items = new SymbolTableItem[INITIAL_CAPACITY];
+        private int size = 0;
+
+        SymbolTableItem get(int nameId) {
+            int mask = keys.length - 1;
+            for (int slot = nameId & mask; ; slot = (slot + 1) & mask) {
+                int key = keys[slot];
+                if (key == nameId + 1) {
+                    return items[slot];
+                }
+                if (key == 0) {
+                    return null;
+                }
+            }
+        }
+
+        void put(int nameId, SymbolTableItem item) {
+            int mask = keys.length - 1;
+            int slot = nameId & mask;
+            while (keys[slot] != 0 && keys[slot] != nameId + 1) {
+                slot = (slot + 1) & mask;
+            }
+            boolean added = keys[slot] == 0;
+            keys[slot] = nameId + 1;
+            items[slot] = item;
+            // Kept at most half full
+            if (added && ++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            SymbolTableItem[] oldItems = items;
+            keys = new int[oldKeys.length * 2];
+            items = new SymbolTableItem[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == 0) {
+                    continue;
+                }
+                int slot = (oldKeys[i] - 1) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                items[slot] = oldItems[i];
+            }
+        }
+    }
+
+    private final NameTable _names;
+    private final Entries[] _entries = new Entries[TYPES.length];
     private SymbolTable _parentSymbolTable;
 
+    // Shares the parent's names, a table without a parent starts its own
     public SymbolTable(SymbolTable parentSymbolTable) {
-        _scopeToVars = new HashMap<>();
+        this(parentSymbolTable, parentSymbolTable != null ? parentSymbolTable._names : new NameTable());
+    }
+
+    // All the tables a lookup can go through must share names
+    public SymbolTable(SymbolTable parentSymbolTable, NameTable names) {
         this._parentSymbolTable = parentSymbolTable;
+        this._names = names;
     }
 
     public void addSymbol(SymbolItemKey key, SymbolTableItem symbol) {
-        _scopeToVars.put(key, symbol);
+        addSymbol(key.getName(), key.getType(), symbol);
+    }
+
+    public void addSymbol(String name, SymbolType type, SymbolTableItem symbol) {
+        Entries entries = _entries[type.ordinal()];
+        if (entries == null) {
+            entries = _entries[type.ordinal()] = new Entries();
+        }
+        entries.put(_names.idOf(name), symbol);
+    }
+
+    // NOT_FOUND when neither this scope nor the ones enclosing it have the symbol
+    public SymbolTableItem get(String name, SymbolType type) {
+        int nameId = _names.findId(name);
+        if (nameId < 0) {
+            return NOT_FOUND;
+        }
+        int ordinal = type.ordinal();
+        for (SymbolTable table = this; table != null; table = table._parentSymbolTable) {
+            Entries entries = table._entries[ordinal];
+            if (entries != null) {
+                SymbolTableItem item = entries.get(nameId);
+                if (item != null) {
+                    return item;
+                }
+            }
+        }
+        return NOT_FOUND;
     }
 
-    public SymbolTableItem get(SymbolItemKey key) throws NoSuchElementException {
-        SymbolTableItem value = _scopeToVars.get(key);
-        if(value == null && _parentSymbolTable != null)
-            return _parentSymbolTable.get(key);
-        else if(value == null)
-            throw new NoSuchElementException();
-        else
-            return value;
+    public SymbolTableItem get(SymbolItemKey key) {
+        return get(key.getName(), key.getType());
     }
 
     public void printSymbolTableItems(){
@@ -35,8 +124,16 @@ public class SymbolTable {
             _parentSymbolTable.printSymbolTableItems();
         }
         System.out.println("*********** this symbol table ************");
-        for (var entry: _scopeToVars.entrySet()){
-            System.out.println(entry.getKey());
+        for (SymbolType type : TYPES) {
+            Entries entries = _entries[type.ordinal()];
+            if (entries == null) {
+                continue;
+            }
+            for (SymbolTableItem item : entries.items) {
+                if (item != null) {
+                    System.out.println(item.getId() + " " + type);
+                }
+            }
         }
     }
 
@@ -7,8 +7,11 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
     private Stack<SymbolTable> _symbolTableHierarchy;
     private Map<String,SymbolTable> _classesSymbolTable;
     private AstToSymbolTable _astToSymbolTable;
+    // Shared by all the symbol tables, so lookups through any of them compare the same name ids
+    private NameTable _names = new NameTable();
     private SymbolType _type = SymbolType.Method_Var;
     private Boolean _isValid = true;
+    private int _symbolTablesCount = 0;
 
     public SymbolTableVisitor() {
         _classesSymbolTable = new HashMap<>();
@@ -24,7 +27,7 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
         // Order is important! We first want to add the parent fields
         if (classDecl.superName() != null) {
             SymbolTable parentSymbolTable = _classesSymbolTable.get(classDecl.superName());
-            SymbolTableItem parentClassItem = parentSymbolTable.get(new SymbolItemKey(classDecl.superName(), SymbolType.Class));
+            SymbolTableItem parentClassItem = parentSymbolTable.get(classDecl.superName(), SymbolType.Class);
             for (var entry : parentClassItem.getVTable().getFields().entrySet()) {
                 vTable.addField(entry.getKey(),entry.getValue());
             }
@@ -50,7 +53,6 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
     }
 
     private void visitBinaryExpr(BinaryExpr e, String infixSymbol) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         e.e1().accept(this);
         e.e2().accept(this);
     }
@@ -58,7 +60,8 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
     @Override
     public void visit(Program program) {
         // Order matters. We first connect the Ast to a new SymbolTable and then we add it to the mapping using peek
-        _symbolTableHierarchy.push((new SymbolTable(null)));
+        _symbolTableHierarchy.push((new SymbolTable(null, _names)));
+        _symbolTablesCount++;
         _astToSymbolTable.addMapping(program, _symbolTableHierarchy.peek());
 
         // TODO: run over classes, add to private filed that contains VTable to Class ID
@@ -67,7 +70,9 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
         program.mainClass().accept(this);
 
         for (ClassDecl classdecl : program.classDecls()) {
+            var event = CompilerEvents.classDecl(this, classdecl);
             classdecl.accept(this);
+            event.finish();
         }
     }
 
@@ -81,14 +86,14 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
         }
 
         // Order matters. We first connect the Ast to a new SymbolTable and then we add it to the mapping using peek
-        _symbolTableHierarchy.push((new SymbolTable(parentSymbolTable)));
+        _symbolTableHierarchy.push((new SymbolTable(parentSymbolTable, _names)));
+        _symbolTablesCount++;
         _astToSymbolTable.addMapping(classDecl, _symbolTableHierarchy.peek());
 
         ObjectVTable vTable = createVTable(classDecl);
         SymbolTable curContextSymbolTable = _symbolTableHierarchy.peek();
-        SymbolItemKey key = new SymbolItemKey(classDecl.name(), SymbolType.Class);
         SymbolTableItem val  = new SymbolTableItem(classDecl.name(), vTable, classDecl);
-        curContextSymbolTable.addSymbol(key, val);
+        curContextSymbolTable.addSymbol(classDecl.name(), SymbolType.Class, val);
 
         _type = SymbolType.Field;
         for (var fieldDecl : classDecl.fields()) {
@@ -97,7 +102,9 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
 
         _type = SymbolType.Method_Var;
         for (var methodDecl : classDecl.methoddecls()) {
+            var event = CompilerEvents.methodDecl(this, classDecl, methodDecl);
             methodDecl.accept(this);
+            event.finish();
         }
 
         _classesSymbolTable.put(classDecl.name(), _symbolTableHierarchy.peek());
@@ -111,13 +118,13 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
 
     @Override
     public void visit(MethodDecl methodDecl) {
-        _symbolTableHierarchy.push(new SymbolTable(_symbolTableHierarchy.peek()));
+        _symbolTableHierarchy.push(new SymbolTable(_symbolTableHierarchy.peek(), _names));
+        _symbolTablesCount++;
         _astToSymbolTable.addMapping(methodDecl, _symbolTableHierarchy.peek());
 
         MethodSignature methodSignature = createMethodSignature(methodDecl);
         SymbolTable curContextSymbolTable = _symbolTableHierarchy.peek();
-        SymbolItemKey key = new SymbolItemKey(methodDecl.name(), SymbolType.Method);
-        curContextSymbolTable.addSymbol(key, new SymbolTableItem(methodDecl.name(), methodSignature));
+        curContextSymbolTable.addSymbol(methodDecl.name(), SymbolType.Method, new SymbolTableItem(methodDecl.name(), methodSignature));
 
         methodDecl.returnType().accept(this);
 
@@ -140,26 +147,21 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
     @Override
     public void visit(FormalArg formalArg) {
         SymbolTable curContextSymbolTable = _symbolTableHierarchy.peek();
-        _astToSymbolTable.addMapping(formalArg, curContextSymbolTable);
-        SymbolItemKey key = new SymbolItemKey(formalArg.name(), SymbolType.Var);
-        curContextSymbolTable.addSymbol(key, new SymbolTableItem(formalArg.name(), formalArg.type(), SymbolType.Method_Var));
+        curContextSymbolTable.addSymbol(formalArg.name(), SymbolType.Var, new SymbolTableItem(formalArg.name(), formalArg.type(), SymbolType.Method_Var));
         formalArg.type().accept(this);
     }
 
     @Override
     public void visit(VarDecl varDecl) {
         SymbolTable curContextSymbolTable = _symbolTableHierarchy.peek();
-        _astToSymbolTable.addMapping(varDecl, _symbolTableHierarchy.peek());
 
         // Add the current variable to the current Symbol Table representing its scope
-        SymbolItemKey key = new SymbolItemKey(varDecl.name(), SymbolType.Var);
-        curContextSymbolTable.addSymbol(key, new SymbolTableItem(varDecl.name(), varDecl.type(), _type));
+        curContextSymbolTable.addSymbol(varDecl.name(), SymbolType.Var, new SymbolTableItem(varDecl.name(), varDecl.type(), _type));
         varDecl.type().accept(this);
     }
 
     @Override
     public void visit(BlockStatement blockStatement) {
-        _astToSymbolTable.addMapping(blockStatement, _symbolTableHierarchy.peek());
         for (var s : blockStatement.statements()) {
             s.accept(this);
         }
@@ -167,7 +169,6 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
 
     @Override
     public void visit(IfStatement ifStatement) {
-        _astToSymbolTable.addMapping(ifStatement, _symbolTableHierarchy.peek());
         ifStatement.cond().accept(this);
         ifStatement.thencase().accept(this);
         ifStatement.elsecase().accept(this);
@@ -175,70 +176,59 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
 
     @Override
     public void visit(WhileStatement whileStatement) {
-        _astToSymbolTable.addMapping(whileStatement, _symbolTableHierarchy.peek());
         whileStatement.cond().accept(this);
         whileStatement.body().accept(this);
     }
 
     @Override
     public void visit(SysoutStatement sysoutStatement) {
-        _astToSymbolTable.addMapping(sysoutStatement, _symbolTableHierarchy.peek());
         sysoutStatement.arg().accept(this);
     }
 
     @Override
     public void visit(AssignStatement assignStatement) {
-        _astToSymbolTable.addMapping(assignStatement, _symbolTableHierarchy.peek());
         assignStatement.rv().accept(this);
     }
 
     @Override
     public void visit(AssignArrayStatement assignArrayStatement) {
-        _astToSymbolTable.addMapping(assignArrayStatement, _symbolTableHierarchy.peek());
         assignArrayStatement.index().accept(this);
         assignArrayStatement.rv().accept(this);
     }
 
     @Override
     public void visit(AndExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         visitBinaryExpr(e, "&&");
     }
 
     @Override
     public void visit(LtExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         visitBinaryExpr(e, "<");
     }
 
     @Override
     public void visit(AddExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         visitBinaryExpr(e, "+");
     }
 
     @Override
     public void visit(SubtractExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         visitBinaryExpr(e, "-");
     }
 
     @Override
     public void visit(MultExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         visitBinaryExpr(e, "*");
     }
 
     @Override
     public void visit(ArrayAccessExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         e.arrayExpr().accept(this);
         e.indexExpr().accept(this);
     }
 
     @Override
     public void visit(ArrayLengthExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         e.arrayExpr().accept(this);
     }
 
@@ -248,7 +238,6 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
             _isValid = false;
             return;
         }
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         e.ownerExpr().accept(this);
 
         for (Expr arg : e.actuals()) {
@@ -258,64 +247,55 @@ public class SymbolTableVisitor<IAstToSymbolTable> implements IVisitorWithField<
 
     @Override
     public void visit(IntegerLiteralExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(TrueExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(FalseExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(IdentifierExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
     }
 
     public void visit(ThisExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(NewIntArrayExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         e.lengthExpr().accept(this);
     }
 
     @Override
     public void visit(NewObjectExpr e) {
-
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(NotExpr e) {
-        _astToSymbolTable.addMapping(e, _symbolTableHierarchy.peek());
         e.e().accept(this);
     }
 
     @Override
     public void visit(IntAstType t) {
-        _astToSymbolTable.addMapping(t, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(BoolAstType t) {
-        _astToSymbolTable.addMapping(t, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(IntArrayAstType t) {
-        _astToSymbolTable.addMapping(t, _symbolTableHierarchy.peek());
     }
 
     @Override
     public void visit(RefType t) {
-        _astToSymbolTable.addMapping(t, _symbolTableHierarchy.peek());
+    }
+
+    public int getSymbolTablesCount() {
+        return _symbolTablesCount;
     }
 
     @Override
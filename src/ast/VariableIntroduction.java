@@ -10,16 +10,30 @@ public abstract class VariableIntroduction extends AstNode {
     @XmlElement(required = true)
     private String name;
 
+    // The parsers locate variables, so they keep their whole SourceSpan
+    private long span = SourceSpan.NONE;
+
     // for deserialization only!
     public VariableIntroduction() {
     }
 
     public VariableIntroduction(AstType type, String name, int lineNumber) {
-        super(lineNumber);
+        super();
+        this.span = SourceSpan.of(lineNumber);
         this.type = new AstTypeWrapper(type);
         this.name = name;
     }
 
+    @Override
+    public long span() {
+        return span;
+    }
+
+    @Override
+    public void setSpan(long span) {
+        this.span = span;
+    }
+
     public AstType type() {
         return type.t;
     }
@@ -0,0 +1,67 @@
+package ast;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+
+/*
+ * Writes through to a Writer, which should be buffered. Closing the writer is left to its owner.
+ * */
+public class WriterOutputSink implements IOutputSink {
+    private final Writer writer;
+    private final char[] chunk = new char[1024];
+
+    public WriterOutputSink(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public IOutputSink append(CharSequence text) {
+        try {
+            // null is written as "null", as Writer.append does
+            if (text == null) {
+                text = "null";
+            }
+            if (text instanceof String) {
+                writer.write((String) text);
+                return this;
+            }
+            // Writer.append would copy other CharSequences, such as a formatter's line buffer, into a new String
+            int length = text.length();
+            for (int start = 0; start < length; start += chunk.length) {
+                int end = Math.min(length, start + chunk.length);
+                for (int i = start; i < end; i++) {
+                    chunk[i - start] = text.charAt(i);
+                }
+                writer.write(chunk, 0, end - start);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public IOutputSink append(char c) {
+        try {
+            writer.write(c);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return this;
+    }
+
+    @Override
+    public IOutputSink append(int i) {
+        return append(Integer.toString(i));
+    }
+
+    @Override
+    public void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}